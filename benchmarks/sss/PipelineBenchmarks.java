@@ -0,0 +1,1119 @@
+package sss;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// JMH suite for the reconstruction pipeline: every stage on its own and the whole
+// document-to-secret path, over share sets from ShareSetGenerator, and in the nested
+// classes the engines and transports behind them, each next to the baseline it replaced.
+//
+//   mvn -B -Pbenchmarks package
+//   java -jar target/benchmarks.jar                          everything, default parameters
+//   java -jar target/benchmarks.jar -l                       list the benchmarks
+//   java -jar target/benchmarks.jar findSecret -p n=16 -p k=8 -p corrupted=4
+//   java -jar target/benchmarks.jar Input -p size=1G -prof gc
+//   java -jar target/benchmarks.jar Startup -p command=classpath,jar,appcds,native
+//
+// Run it from the project directory: Server, Startup and Reuse read testcase1.json and
+// testcase2.json, and Startup the jar, archive and image under target/.
+//
+// JMH does not carry class annotations over to nested classes, so each states its own mode,
+// iterations and fork.
+//
+// Any JMH option is accepted. Unless -rff is given, results are also written as JSON to
+// target/jmh-results/pipeline-<timestamp>.json, one file per run, for trend tracking.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmarks {
+
+    @Param({"10"})
+    public int n;
+
+    @Param({"5"})
+    public int k;
+
+    // bit length of the polynomial coefficients, and so of the secret
+    @Param({"128", "1024"})
+    public int bits;
+
+    // base of the share values in the assignment format
+    @Param({"16"})
+    public int base;
+
+    @Param({"0", "2"})
+    public int corrupted;
+
+    @Param({"assignment", "function"})
+    public String format;
+
+    @Param({"1"})
+    public long seed;
+
+    private String document;
+    private Map<Integer, String> rawShares;
+    private Map<Integer, BigInteger> decoded;
+    private int[] xs;
+    private BigInteger[] ys;
+    private int[] firstK;
+    private SecretSharing.Options options;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ShareSetGenerator.ShareSet set = ShareSetGenerator.generate(n, k, bits, corrupted, seed);
+        document = ShareSetGenerator.document(set, ShareSetGenerator.Format.fromName(format), base, seed, false);
+        // Time the pipeline with its progress output switched off, as batch and server run it
+        options = new SecretSharing.Options().withLog(Log.QUIET);
+
+        // The assignment format is decoded while parsing; its values as decimal strings
+        // give decodeShares the plain-number path of the function format
+        SecretSharing.SecretSharingInput input = SecretSharing.parseJSON(document, Log.QUIET);
+        if (input.decodedShares != null) {
+            rawShares = new TreeMap<>();
+            input.decodedShares.forEach((x, y) -> rawShares.put(x, y.toString()));
+        } else {
+            rawShares = input.shares;
+        }
+        decoded = SecretSharing.decodeShares(rawShares, Log.QUIET);
+        xs = toXs(decoded);
+        ys = toYs(decoded);
+        firstK = range(k);
+
+        // The assignment format trusts its first k shares, so corrupted sets are only timed
+        if (corrupted == 0 || format.equals("function")) {
+            BigInteger secret = SecretSharing.reconstruct(document, options).secret;
+            if (!secret.equals(set.secret)) {
+                throw new IllegalStateException("Recovered " + secret + " instead of " + set.secret);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object parseJSON() {
+        return SecretSharing.parseJSON(document, Log.QUIET);
+    }
+
+    @Benchmark
+    public Object decodeShares() {
+        return SecretSharing.decodeShares(rawShares, Log.QUIET);
+    }
+
+    @Benchmark
+    public Object lagrangeInterpolation() {
+        return SecretSharing.lagrangeInterpolation(xs, ys, firstK);
+    }
+
+    @Benchmark
+    public Object findSecret() {
+        return SecretSharing.findSecret(decoded, k, options);
+    }
+
+    @Benchmark
+    public Object endToEnd() {
+        return SecretSharing.reconstruct(document, options);
+    }
+
+    // The regex parser against the single-pass tokenizer on large generated documents
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Parse {
+
+        @Param({"5000"})
+        public int shares;
+
+        @Param({"assignment", "function"})
+        public String format;
+
+        private String json;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            json = format.equals("assignment")
+                    ? generateAssignmentDocument(shares, 3, 40, 42)
+                    : generateFunctionDocument(shares, 3, 42);
+        }
+
+        @Benchmark
+        public Object regex() {
+            return SecretSharing.parseJSONRegex(json, Log.QUIET);
+        }
+
+        @Benchmark
+        public Object tokenizer() {
+            return SecretSharing.parseJSON(json, Log.QUIET);
+        }
+    }
+
+    // The buffered String reader against the mapped input, single shots on a file of the
+    // given size: until the first share is out, and through the whole parse. The first
+    // share is parsed as a fragment up to the end of the first member, so the buffered
+    // reader pays for the whole file first and the mapped input only for the pages that
+    // member touches. Run with -prof gc for the allocation of each.
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    public static class Input {
+
+        @Param({"1K", "64K", "1M", "16M", "64M"})
+        public String size;
+
+        private Path file;
+        private String name;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = Files.createTempFile("shares-" + size + "-", ".json");
+            writeFunctionDocument(file, parseSize(size));
+            name = file.toString();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+        }
+
+        @Benchmark
+        public Object bufferedFirstShare() throws IOException {
+            return firstShare(SecretSharing.readFileBuffered(name));
+        }
+
+        @Benchmark
+        public Object mappedFirstShare() throws IOException {
+            return firstShare(ShareInput.read(name));
+        }
+
+        @Benchmark
+        public Object bufferedParse() throws IOException {
+            return SecretSharing.parseJSON(SecretSharing.readFileBuffered(name), Log.QUIET);
+        }
+
+        @Benchmark
+        public Object mappedParse() throws IOException {
+            return SecretSharing.parseJSON(ShareInput.read(name), Log.QUIET);
+        }
+
+        // Parses the document up to the end of its first share, "x": "sum(a, b)"
+        private static Object firstShare(CharSequence content) {
+            for (int i = 1; i < content.length(); i++) {
+                if (content.charAt(i - 1) == ')' && content.charAt(i) == '"') {
+                    return ShareJsonTokenizer.parseFragment(content.subSequence(0, i + 1) + "}");
+                }
+            }
+            throw new IllegalStateException("No share in the document");
+        }
+    }
+
+    // Whole load from disk: map, parse and decode the JSON, or map and read the container
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Container {
+
+        @Param({"100000"})
+        public int shares;
+
+        // digits of the assignment-format values
+        @Param({"100"})
+        public int digits;
+
+        @Param({"assignment", "function"})
+        public String format;
+
+        private Path json;
+        private Path container;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            json = Files.createTempFile("shares-", ".json");
+            container = Files.createTempFile("shares-", ".shares");
+            Files.writeString(json, format.equals("assignment")
+                    ? generateAssignmentDocument(shares, 3, digits, 42)
+                    : generateFunctionDocument(shares, 3, 42));
+            ShareContainer.write(container, ShareContainer.load(json.toString(), Log.QUIET));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(json);
+            Files.deleteIfExists(container);
+        }
+
+        @Benchmark
+        public Object json() throws IOException {
+            SecretSharing.SecretSharingInput input = SecretSharing.parseJSON(ShareInput.read(json.toString()), Log.QUIET);
+            return input.decodedShares != null ? input.decodedShares : SecretSharing.decodeShares(input.shares, Log.QUIET);
+        }
+
+        @Benchmark
+        public Object container() throws IOException {
+            return ShareContainer.read(container, Log.QUIET).decodedShares;
+        }
+    }
+
+    // The three decoders on k = n/2 with (n-k)/2 corrupted shares; RANSAC is seeded
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Decode {
+
+        @Param({"8", "12", "16", "20"})
+        public int n;
+
+        private int k;
+        private Map<Integer, BigInteger> shares;
+        private SecretSharing.Options combinations;
+        private SecretSharing.Options berlekampWelch;
+        private SecretSharing.Options ransac;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            k = n / 2;
+            shares = ShareSetGenerator.generate(n, k, 64, (n - k) / 2, n).shares;
+            combinations = new SecretSharing.Options().withLog(Log.QUIET);
+            berlekampWelch = combinations.copy();
+            berlekampWelch.decodingMode = SecretSharing.DecodingMode.BERLEKAMP_WELCH;
+            ransac = combinations.copy();
+            ransac.decodingMode = SecretSharing.DecodingMode.RANSAC;
+            ransac.seed = 1L;
+        }
+
+        @Benchmark
+        public Object combinations() {
+            return SecretSharing.findSecret(shares, k, combinations);
+        }
+
+        @Benchmark
+        public Object berlekampWelch() {
+            return SecretSharing.findSecret(shares, k, berlekampWelch);
+        }
+
+        @Benchmark
+        public Object ransac() {
+            return SecretSharing.findSecret(shares, k, ransac);
+        }
+    }
+
+    // The fork/join combination search at a given number of workers. A single worker goes
+    // through the fork/join path too, so every row does the full scan.
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Parallel {
+
+        @Param({"18"})
+        public int n;
+
+        @Param({"9"})
+        public int k;
+
+        @Param({"1", "2", "4"})
+        public int workers;
+
+        private int[] xs;
+        private BigInteger[] ys;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Map<Integer, BigInteger> shares = ShareSetGenerator.generate(n, k, 64, (n - k) / 2, n).shares;
+            xs = toXs(shares);
+            ys = toYs(shares);
+        }
+
+        @Benchmark
+        public Object vote() {
+            return ParallelCombinationSearch.vote(xs, ys, k, null, null, workers, Log.QUIET);
+        }
+    }
+
+    // Every k-subset of n = k + 4 shares interpolated without voting, by recomputing each
+    // subset and by revolving-door incremental weights. One operation is the whole sweep.
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Incremental {
+
+        @Param({"4", "8", "16", "32"})
+        public int k;
+
+        private int n;
+        private int[] xs;
+        private BigInteger[] ys;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            n = k + 4;
+            Map<Integer, BigInteger> shares = ShareSetGenerator.generate(n, k, 256, 0, k).shares;
+            xs = toXs(shares);
+            ys = toYs(shares);
+            if (!recomputeAll(n, k, xs, ys).equals(incrementalAll(n, k, xs, ys))) {
+                throw new IllegalStateException("Incremental weights disagree with recomputation at k = " + k);
+            }
+        }
+
+        @Benchmark
+        public Object recompute() {
+            return recomputeAll(n, k, xs, ys);
+        }
+
+        @Benchmark
+        public Object incremental() {
+            return incrementalAll(n, k, xs, ys);
+        }
+    }
+
+    // As Incremental, on n = k + 8 shares of a polynomial with 8-bit coefficients, adding
+    // the machine-word engine for values that fit in a long
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Small {
+
+        @Param({"4", "6", "8", "10", "12"})
+        public int k;
+
+        private int n;
+        private int[] xs;
+        private BigInteger[] ys;
+        private SmallShares small;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            n = k + 8;
+            Map<Integer, BigInteger> shares = ShareSetGenerator.generate(n, k, 8, 0, k).shares;
+            xs = toXs(shares);
+            ys = toYs(shares);
+            small = SmallShares.of(xs, ys);
+            if (small == null) {
+                throw new IllegalStateException("Share values do not fit in a long at k = " + k);
+            }
+            if (!words().equals(recomputeAll(n, k, xs, ys))) {
+                throw new IllegalStateException("Machine-word engine disagrees with recomputation at k = " + k);
+            }
+        }
+
+        @Benchmark
+        public Object recompute() {
+            return recomputeAll(n, k, xs, ys);
+        }
+
+        @Benchmark
+        public Object incremental() {
+            return incrementalAll(n, k, xs, ys);
+        }
+
+        @Benchmark
+        public Object words() {
+            Combinations combinations = new Combinations(n, k);
+            BigInteger checksum = BigInteger.ZERO;
+            while (combinations.next()) {
+                checksum = checksum.xor(small.interpolateAtZero(combinations.indices()));
+            }
+            return checksum;
+        }
+    }
+
+    // One interpolation of k field elements: integer Lagrange, BigInteger mod p with one
+    // modInverse per term, and the Montgomery field engine
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Field {
+
+        @Param({"256", "521"})
+        public int prime;
+
+        @Param({"8", "32", "128"})
+        public int k;
+
+        private BigInteger modulus;
+        private int[] xs;
+        private BigInteger[] ys;
+        private int[] indices;
+        private PrimeField.Points points;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            modulus = prime == 256 ? PrimeField.P256 : PrimeField.P521;
+            Random random = new Random(k);
+            xs = new int[k];
+            ys = new BigInteger[k];
+            for (int i = 0; i < k; i++) {
+                xs[i] = i + 1;
+                ys[i] = new BigInteger(modulus.bitLength() - 1, random);
+            }
+            indices = range(k);
+            points = new PrimeField(modulus).new Points(xs, ys);
+            if (!points.interpolateAtZero(indices).equals(interpolateModP(xs, ys, modulus))) {
+                throw new IllegalStateException("Montgomery engine disagrees with BigInteger reference");
+            }
+        }
+
+        @Benchmark
+        public Object integer() {
+            return SecretSharing.lagrangeInterpolation(xs, ys, indices);
+        }
+
+        @Benchmark
+        public Object reference() {
+            return interpolateModP(xs, ys, modulus);
+        }
+
+        @Benchmark
+        public Object montgomery() {
+            return points.interpolateAtZero(indices);
+        }
+    }
+
+    // Per-term truncating division against one exact division, on a random polynomial at
+    // random distinct x-coordinates, so the basis values are rarely integral
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Exact {
+
+        @Param({"64", "256", "1024", "4096"})
+        public int bits;
+
+        @Param({"8", "32", "128"})
+        public int k;
+
+        private int[] xs;
+        private BigInteger[] ys;
+        private int[] indices;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(7);
+            BigInteger[] coefficients = new BigInteger[k];
+            for (int i = 0; i < k; i++) {
+                coefficients[i] = new BigInteger(bits, random);
+                if (random.nextBoolean()) {
+                    coefficients[i] = coefficients[i].negate();
+                }
+            }
+            xs = new int[k];
+            ys = new BigInteger[k];
+            Set<Integer> used = new HashSet<>();
+            for (int i = 0; i < k; i++) {
+                int x;
+                do {
+                    x = 1 + random.nextInt(4 * k);
+                } while (!used.add(x));
+                xs[i] = x;
+                BigInteger y = BigInteger.ZERO;
+                for (int c = k - 1; c >= 0; c--) {
+                    y = y.multiply(BigInteger.valueOf(x)).add(coefficients[c]);
+                }
+                ys[i] = y;
+            }
+            indices = range(k);
+            if (!SecretSharing.lagrangeInterpolation(xs, ys, indices).equals(coefficients[0])) {
+                throw new IllegalStateException("Exact interpolation recovered the wrong secret at " + bits + " bits, k = " + k);
+            }
+        }
+
+        @Benchmark
+        public Object truncating() {
+            return truncatingInterpolation(xs, ys);
+        }
+
+        @Benchmark
+        public Object exact() {
+            return SecretSharing.lagrangeInterpolation(xs, ys, indices);
+        }
+    }
+
+    // BigInteger(String, base) and toString against the divide-and-conquer conversions
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Radix {
+
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int digits;
+
+        @Param({"3", "10", "16", "36"})
+        public int base;
+
+        private String text;
+        private BigInteger value;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(13);
+            char[] chars = new char[digits];
+            chars[0] = Character.forDigit(1 + random.nextInt(base - 1), base);
+            for (int i = 1; i < digits; i++) {
+                chars[i] = Character.forDigit(random.nextInt(base), base);
+            }
+            text = new String(chars);
+            value = new BigInteger(text, base);
+            if (!RadixConversion.parse(text, base).equals(value) || !RadixConversion.toString(value, base).equals(text)) {
+                throw new IllegalStateException("Radix conversion disagrees with BigInteger in base " + base);
+            }
+        }
+
+        @Benchmark
+        public Object jdkParse() {
+            return new BigInteger(text, base);
+        }
+
+        @Benchmark
+        public Object parse() {
+            return RadixConversion.parse(text, base);
+        }
+
+        @Benchmark
+        public Object jdkToString() {
+            return value.toString(base);
+        }
+
+        @Benchmark
+        public Object toText() {
+            return RadixConversion.toString(value, base);
+        }
+    }
+
+    // f(0) from k of n = 5k/4 shares of a random polynomial mod P-256, by O(k^2) Lagrange
+    // and by the subproduct tree, which findSecret switches to from FastInterpolation.THRESHOLD
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    @Fork(1)
+    public static class Interpolate {
+
+        @Param({"100", "1000", "10000"})
+        public int k;
+
+        private int[] xs;
+        private BigInteger[] ys;
+        private int[] indices;
+        private PrimeField.Points points;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            int n = k + k / 4;
+            xs = new int[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = i + 1;
+            }
+            indices = new int[k];
+            for (int i = 0; i < k; i++) {
+                indices[i] = (int) ((long) i * n / k);
+            }
+            BigInteger[] coefficients = ShareSplitter.randomPolynomial(BigInteger.valueOf(424242), k, 256, PrimeField.P256, new Random(19));
+            ys = MultipointEvaluation.evaluate(coefficients, xs, PrimeField.P256, 1);
+            points = new PrimeField(PrimeField.P256).new Points(xs, ys);
+            if (!FastInterpolation.interpolateAtZero(xs, ys, indices, PrimeField.P256).equals(coefficients[0])) {
+                throw new IllegalStateException("Subproduct tree disagrees with the secret at k = " + k);
+            }
+        }
+
+        @Benchmark
+        public Object lagrange() {
+            return points.lagrangeAtZero(indices);
+        }
+
+        @Benchmark
+        public Object subproductTree() {
+            return FastInterpolation.interpolateAtZero(xs, ys, indices, PrimeField.P256);
+        }
+    }
+
+    // Single-threaded evaluation of 4096 points modulo P-256 at growing degree
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    @Fork(1)
+    public static class Evaluate {
+
+        private static final int POINTS = 4096;
+
+        @Param({"64", "256", "512", "1024"})
+        public int k;
+
+        private BigInteger[] coefficients;
+        private int[] xs;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            coefficients = ShareSplitter.randomPolynomial(BigInteger.ONE, k, 256, PrimeField.P256, new Random(17));
+            xs = new int[POINTS];
+            for (int i = 0; i < POINTS; i++) {
+                xs[i] = i + 1;
+            }
+            if (!Arrays.equals((BigInteger[]) horner(), (BigInteger[]) subproductTree())) {
+                throw new IllegalStateException("Subproduct tree disagrees with Horner at k = " + k);
+            }
+        }
+
+        @Benchmark
+        public Object horner() {
+            BigInteger[] values = new BigInteger[POINTS];
+            MultipointEvaluation.horner(coefficients, xs, 0, POINTS, PrimeField.P256, values);
+            return values;
+        }
+
+        @Benchmark
+        public Object subproductTree() {
+            BigInteger[] values = new BigInteger[POINTS];
+            MultipointEvaluation.subproductTree(coefficients, xs, 0, POINTS, PrimeField.P256, values);
+            return values;
+        }
+    }
+
+    // Complete split documents, written to a null writer on all cores
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    @Fork(1)
+    public static class Split {
+
+        @Param({"1000", "10000", "100000"})
+        public int n;
+
+        @Param({"3", "64"})
+        public int k;
+
+        @Param({"integers", "p256"})
+        public String field;
+
+        @Param({"assignment", "function"})
+        public String format;
+
+        private BigInteger modulus;
+        private BigInteger[] coefficients;
+        private int[] bases;
+        private int threads;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(17);
+            modulus = field.equals("p256") ? PrimeField.P256 : null;
+            coefficients = ShareSplitter.randomPolynomial(BigInteger.valueOf(123456789), k, 256, modulus, random);
+            bases = ShareSplitter.bases("random", n, random);
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+
+        @Benchmark
+        public void write() throws IOException {
+            ShareSplitter.write(Writer.nullWriter(), coefficients, n, modulus,
+                    ShareSetGenerator.Format.fromName(format), bases, threads);
+        }
+    }
+
+    // Latency of the resident server over HTTP and a Unix socket with closed-loop clients,
+    // each sending its next request when the previous reply arrives. Sample mode gives the
+    // percentiles; -t sets the number of clients.
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    @Threads(4)
+    public static class Server {
+
+        @Param({"assignment", "corrupted"})
+        public String document;
+
+        private ReconstructionServer server;
+        private Path socket;
+        private HttpClient http;
+        private HttpRequest request;
+        private String line;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            String body = document.equals("assignment")
+                    ? Files.readString(Paths.get("testcase2.json"))
+                    : ShareSetGenerator.document(ShareSetGenerator.generate(10, 5, 128, 2, 42),
+                            ShareSetGenerator.Format.FUNCTION, 10, 42, false);
+            line = body.replace('\n', ' ').replace('\r', ' ') + "\n";
+
+            socket = Paths.get(System.getProperty("java.io.tmpdir"), "secret-sharing-benchmark.sock");
+            Files.deleteIfExists(socket);
+            SecretSharing.Options options = new SecretSharing.Options();
+            options.httpPort = 0;
+            options.unixSocket = socket.toString();
+            options.workers = 4;
+            server = ReconstructionServer.start(options);
+            http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.httpPort() + "/reconstruct"))
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            server.stop();
+            Files.deleteIfExists(socket);
+        }
+
+        // One Unix socket connection per client thread
+        @State(Scope.Thread)
+        public static class Connection {
+
+            private SocketChannel channel;
+            private Writer out;
+            private BufferedReader in;
+
+            @Setup(Level.Trial)
+            public void connect(Server server) throws IOException {
+                channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+                channel.connect(UnixDomainSocketAddress.of(server.socket));
+                out = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+                in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            }
+
+            @TearDown(Level.Trial)
+            public void close() throws IOException {
+                channel.close();
+            }
+        }
+
+        @Benchmark
+        public Object http() throws IOException, InterruptedException {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException(response.body());
+            }
+            return response.body();
+        }
+
+        @Benchmark
+        public Object unix(Connection connection) throws IOException {
+            connection.out.write(line);
+            connection.out.flush();
+            String reply = connection.in.readLine();
+            if (reply == null || reply.startsWith("{\"error\"")) {
+                throw new IllegalStateException(reply);
+            }
+            return reply;
+        }
+    }
+
+    // Wall time of whole CLI processes on testcase1.json: java -cp, java -jar, java -jar with
+    // the AppCDS archive and the native image. The last three need mvn -B package, -Pcds
+    // package and -Pnative package first; a command whose artifact is missing fails in setup.
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 20)
+    @Fork(1)
+    public static class Startup {
+
+        @Param({"classpath", "jar"})
+        public String command;
+
+        private List<String> arguments;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            Path jar = Paths.get("target", "secret-sharing-1.0-SNAPSHOT.jar");
+            Path archive = Paths.get("target", "secret-sharing.jsa");
+            Path image = Paths.get("target", "secret-sharing");
+            arguments = new ArrayList<>();
+            switch (command) {
+                case "classpath":
+                    arguments.addAll(List.of(java, "-cp", System.getProperty("java.class.path"), "SecretSharing"));
+                    break;
+                case "jar":
+                    arguments.addAll(List.of(java, "-jar", require(jar).toString()));
+                    break;
+                case "appcds":
+                    arguments.addAll(List.of(java, "-XX:SharedArchiveFile=" + require(archive), "-jar", require(jar).toString()));
+                    break;
+                case "native":
+                    arguments.add(require(image).toString());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown command: " + command);
+            }
+            arguments.add("--quiet");
+            arguments.add("testcase1.json");
+        }
+
+        private static Path require(Path artifact) {
+            if (!Files.exists(artifact)) {
+                throw new IllegalStateException(artifact + " not found, build it first");
+            }
+            return artifact;
+        }
+
+        @Benchmark
+        public int process() throws IOException, InterruptedException {
+            Process process = new ProcessBuilder(arguments)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            int status = process.waitFor();
+            if (status != 0) {
+                throw new IllegalStateException("exit status " + status);
+            }
+            return status;
+        }
+    }
+
+    // The in-process counterpart of Startup: one reused SecretReconstructor for every call
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Reuse {
+
+        @Param({"testcase1.json", "testcase2.json"})
+        public String file;
+
+        private SecretReconstructor reconstructor;
+        private Path path;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            reconstructor = SecretReconstructor.builder().verbose(false).build();
+            path = Paths.get(file);
+        }
+
+        @Benchmark
+        public Object reconstruct() throws IOException {
+            return reconstructor.reconstruct(path);
+        }
+    }
+
+    private static int[] toXs(Map<Integer, BigInteger> shares) {
+        return shares.keySet().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static BigInteger[] toYs(Map<Integer, BigInteger> shares) {
+        return shares.values().toArray(new BigInteger[0]);
+    }
+
+    private static int[] range(int k) {
+        int[] indices = new int[k];
+        for (int i = 0; i < k; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    // Interpolates every k-subset from scratch; the xor of the secrets keeps the work live
+    private static BigInteger recomputeAll(int n, int k, int[] xs, BigInteger[] ys) {
+        Combinations combinations = new Combinations(n, k);
+        BigInteger checksum = BigInteger.ZERO;
+        while (combinations.next()) {
+            checksum = checksum.xor(SecretSharing.lagrangeInterpolation(xs, ys, combinations.indices()));
+        }
+        return checksum;
+    }
+
+    // The same sweep in revolving-door order, updating the weights one share at a time
+    private static BigInteger incrementalAll(int n, int k, int[] xs, BigInteger[] ys) {
+        RevolvingDoorCombinations door = new RevolvingDoorCombinations(n, k);
+        door.next();
+        IncrementalLagrange weights = new IncrementalLagrange(xs, ys, door.slots());
+        BigInteger checksum = weights.secret();
+        while (door.next()) {
+            weights.replaced(door.changedSlot(), door.removed());
+            checksum = checksum.xor(weights.secret());
+        }
+        return checksum;
+    }
+
+    // Straightforward GF(p) Lagrange with BigInteger and one modInverse per term
+    private static BigInteger interpolateModP(int[] xs, BigInteger[] ys, BigInteger prime) {
+        BigInteger secret = BigInteger.ZERO;
+        for (int i = 0; i < xs.length; i++) {
+            BigInteger numerator = BigInteger.ONE;
+            BigInteger denominator = BigInteger.ONE;
+            for (int j = 0; j < xs.length; j++) {
+                if (i != j) {
+                    numerator = numerator.multiply(BigInteger.valueOf(xs[j])).mod(prime);
+                    denominator = denominator.multiply(BigInteger.valueOf(xs[j] - xs[i])).mod(prime);
+                }
+            }
+            secret = secret.add(ys[i].multiply(numerator).mod(prime).multiply(denominator.modInverse(prime))).mod(prime);
+        }
+        return secret;
+    }
+
+    // The previous summation: every term y_i * num_i / den_i divided (and truncated) separately
+    private static BigInteger truncatingInterpolation(int[] xs, BigInteger[] ys) {
+        BigInteger secret = BigInteger.ZERO;
+        for (int i = 0; i < xs.length; i++) {
+            BigInteger numerator = BigInteger.ONE;
+            BigInteger denominator = BigInteger.ONE;
+            for (int j = 0; j < xs.length; j++) {
+                if (i != j) {
+                    numerator = numerator.multiply(BigInteger.valueOf(-xs[j]));
+                    denominator = denominator.multiply(BigInteger.valueOf(xs[i] - xs[j]));
+                }
+            }
+            secret = secret.add(ys[i].multiply(numerator).divide(denominator));
+        }
+        return secret;
+    }
+
+    // An assignment-format document with random values in random bases
+    private static String generateAssignmentDocument(int n, int k, int digits, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(n * (digits + 48));
+        sb.append("{\n    \"keys\": {\n        \"n\": ").append(n).append(",\n        \"k\": ").append(k).append("\n    }");
+        for (int x = 1; x <= n; x++) {
+            int base = 2 + random.nextInt(35);
+            BigInteger value = new BigInteger(digits * 4, random);
+            sb.append(",\n    \"").append(x).append("\": {\n        \"base\": \"").append(base)
+              .append("\",\n        \"value\": \"").append(value.toString(base)).append("\"\n    }");
+        }
+        return sb.append("\n}\n").toString();
+    }
+
+    // A function-format document with a mix of expressions and plain numbers
+    private static String generateFunctionDocument(int n, int k, long seed) {
+        String[] operations = {"sum", "multiply", "lcm", "gcd"};
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(n * 64);
+        sb.append("{\n    \"n\": ").append(n).append(",\n    \"k\": ").append(k);
+        for (int x = 1; x <= n; x++) {
+            sb.append(",\n    \"").append(x).append("\": \"");
+            if (random.nextInt(4) == 0) {
+                sb.append(new BigInteger(96, random));
+            } else {
+                sb.append(operations[random.nextInt(operations.length)]).append('(')
+                  .append(new BigInteger(64, random)).append(", ").append(new BigInteger(64, random)).append(')');
+            }
+            sb.append('"');
+        }
+        return sb.append("\n}\n").toString();
+    }
+
+    // Writes a function-format document of roughly the requested size, streaming, so that
+    // documents larger than the heap can be generated
+    private static void writeFunctionDocument(Path file, long targetBytes) throws IOException {
+        Random random = new Random(42);
+        long shares = 0;
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            out.write("{\n    \"n\": 0000000000,\n    \"k\": 3");
+            long written = 40;
+            while (written < targetBytes || shares < 3) {
+                shares++;
+                String entry = ",\n    \"" + shares + "\": \"sum(" + new BigInteger(64, random) + ", " + new BigInteger(64, random) + ")\"";
+                out.write(entry);
+                written += entry.length();
+            }
+            out.write("\n}\n");
+        }
+        // Patch n in place now that the share count is known
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(String.format("%10d", shares).getBytes(StandardCharsets.US_ASCII)), 11);
+        }
+    }
+
+    // "64K", "1M", "1G" or a plain byte count
+    private static long parseSize(String size) {
+        char unit = Character.toUpperCase(size.charAt(size.length() - 1));
+        long multiplier = unit == 'K' ? 1L << 10 : unit == 'M' ? 1L << 20 : unit == 'G' ? 1L << 30 : 1;
+        String digits = multiplier == 1 ? size : size.substring(0, size.length() - 1);
+        return Long.parseLong(digits) * multiplier;
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        // Listing and help are JMH's own, without running anything
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(PipelineBenchmarks.class.getSimpleName());
+        }
+        if (!commandLine.getResult().hasValue()) {
+            Path results = Paths.get("target", "jmh-results");
+            Files.createDirectories(results);
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            builder.resultFormat(ResultFormatType.JSON)
+                   .result(results.resolve("pipeline-" + timestamp + ".json").toString());
+        }
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,259 @@
+package sss;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+// Batch mode: reconstructs many secrets in one JVM.
+//
+// Sources are directories (every *.json and *.shares in them), globs such as "data/**.json",
+// NDJSON files (*.ndjson, *.jsonl, or "-" for stdin) with one share set per line, or single
+// JSON documents or binary share containers. Documents are read lazily and handed to a fixed pool of worker threads;
+// a semaphore bounds how many are read ahead of the writer, so a slow document holds
+// the reader back instead of letting results pile up. Each result is one JSON line,
+// written in input order (through a small reorder buffer) or in completion order.
+final class BatchRunner {
+
+    private BatchRunner() {
+    }
+
+    static void run(SecretSharing.Options options) throws IOException, InterruptedException {
+        Writer out = options.output == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(Paths.get(options.output), StandardCharsets.UTF_8);
+        int inFlight = options.inFlight > 0 ? options.inFlight : options.batchThreads * 4;
+        Semaphore permits = new Semaphore(inFlight);
+        ResultWriter writer = new ResultWriter(out, options.completionOrder, permits);
+        ExecutorService workers = Executors.newFixedThreadPool(options.batchThreads);
+
+        long start = System.nanoTime();
+        // The pipeline's progress output would only get mixed into the results
+        SecretSharing.Options quiet = options.withLog(Log.QUIET);
+        try {
+            long[] submitted = new long[1];
+            for (String source : options.files) {
+                forEachDocument(source, document -> {
+                    long sequence = submitted[0]++;
+                    permits.acquire();
+                    workers.execute(() -> writer.write(sequence, process(document, quiet)));
+                });
+            }
+            // Every permit is back once the last result has been written
+            permits.acquire(inFlight);
+        } finally {
+            workers.shutdown();
+        }
+        if (options.output == null) {
+            out.flush();
+        } else {
+            out.close();
+        }
+        writer.checkError();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        PrintStream summary = options.output == null ? System.err : System.out;
+        summary.printf("Reconstructed %d secrets (%d failed) in %.2f s, %.1f secrets/s%n",
+                writer.succeeded, writer.failed, seconds, writer.succeeded / seconds);
+    }
+
+    private static Result process(Document document, SecretSharing.Options options) {
+        try {
+            BigInteger secret;
+            if (document.text == null && ShareContainer.isContainer(Paths.get(document.path))) {
+                secret = SecretSharing.reconstruct(ShareContainer.read(Paths.get(document.path), options.log), options).secret;
+            } else {
+                CharSequence json = document.text != null ? document.text : ShareInput.read(document.path);
+                secret = SecretSharing.reconstruct(json, options).secret;
+            }
+            return new Result("{\"source\":" + quote(document.name) + ",\"secret\":\"" + secret + "\"}", true);
+        } catch (Throwable e) {
+            // Even an Error has to come back as a line: the writer returns the document's
+            // permit only when it writes one, and run() waits for all of them
+            String message = e.getMessage() != null ? e.getMessage() : e.toString();
+            return new Result("{\"source\":" + quote(document.name) + ",\"error\":" + quote(message) + "}", false);
+        }
+    }
+
+    // Expands one command line source into documents, in a stable order
+    private static void forEachDocument(String source, DocumentSink sink) throws IOException, InterruptedException {
+        if (source.equals("-")) {
+            readLines("stdin", new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), sink);
+            return;
+        }
+        if (isGlob(source)) {
+            for (Path path : matchGlob(source)) {
+                sink.accept(new Document(path.toString(), path.toString(), null));
+            }
+            return;
+        }
+        Path path = Paths.get(source);
+        if (Files.isDirectory(path)) {
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(path, "*.{json,shares}")) {
+                for (Path entry : entries) {
+                    if (Files.isRegularFile(entry)) {
+                        files.add(entry);
+                    }
+                }
+            }
+            Collections.sort(files);
+            for (Path file : files) {
+                sink.accept(new Document(file.toString(), file.toString(), null));
+            }
+        } else if (source.endsWith(".ndjson") || source.endsWith(".jsonl")) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                readLines(source, reader, sink);
+            }
+        } else {
+            sink.accept(new Document(source, source, null));
+        }
+    }
+
+    // One document per non-blank line, named file:line
+    private static void readLines(String name, BufferedReader reader, DocumentSink sink) throws IOException, InterruptedException {
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!line.isBlank()) {
+                sink.accept(new Document(name + ":" + lineNumber, null, line));
+            }
+        }
+    }
+
+    private static boolean isGlob(String source) {
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Walks from the longest directory prefix without wildcards and keeps the matching files
+    private static List<Path> matchGlob(String pattern) throws IOException {
+        String separator = FileSystems.getDefault().getSeparator();
+        int wildcard = 0;
+        while (!isGlob(pattern.substring(0, wildcard + 1))) {
+            wildcard++;
+        }
+        int cut = pattern.lastIndexOf(separator, wildcard);
+        Path base = Paths.get(cut < 0 ? "" : cut == 0 ? separator : pattern.substring(0, cut));
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        List<Path> matches = new ArrayList<>();
+        if (!Files.isDirectory(base)) {
+            return matches;
+        }
+        try (Stream<Path> paths = Files.walk(base)) {
+            paths.filter(path -> Files.isRegularFile(path) && matcher.matches(path)).forEach(matches::add);
+        }
+        Collections.sort(matches);
+        return matches;
+    }
+
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private interface DocumentSink {
+        void accept(Document document) throws InterruptedException;
+    }
+
+    // A document is either a file to read (path) or an NDJSON line (text)
+    private static final class Document {
+        final String name;
+        final String path;
+        final String text;
+
+        Document(String name, String path, String text) {
+            this.name = name;
+            this.path = path;
+            this.text = text;
+        }
+    }
+
+    private static final class Result {
+        final String line;
+        final boolean succeeded;
+
+        Result(String line, boolean succeeded) {
+            this.line = line;
+            this.succeeded = succeeded;
+        }
+    }
+
+    // Writes results and hands a permit back for every line written. In input order,
+    // results that finish early wait in pending until everything before them is written;
+    // the permits bound that buffer as well.
+    private static final class ResultWriter {
+        private final Writer out;
+        private final boolean completionOrder;
+        private final Semaphore permits;
+        private final Map<Long, Result> pending = new HashMap<>();
+        private long next;
+        private IOException error;
+        long succeeded;
+        long failed;
+
+        ResultWriter(Writer out, boolean completionOrder, Semaphore permits) {
+            this.out = out;
+            this.completionOrder = completionOrder;
+            this.permits = permits;
+        }
+
+        synchronized void write(long sequence, Result result) {
+            if (completionOrder) {
+                emit(result);
+                return;
+            }
+            pending.put(sequence, result);
+            Result ready;
+            while ((ready = pending.remove(next)) != null) {
+                emit(ready);
+                next++;
+            }
+        }
+
+        private void emit(Result result) {
+            if (result.succeeded) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+            try {
+                if (error == null) {
+                    out.write(result.line);
+                    out.write('\n');
+                }
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                permits.release();
+            }
+        }
+
+        synchronized void checkError() throws IOException {
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+}
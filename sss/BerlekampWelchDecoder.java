@@ -0,0 +1,185 @@
+package sss;
+
+import java.math.BigInteger;
+import java.util.*;
+
+// Berlekamp-Welch decoding of Shamir shares.
+//
+// The n shares are a Reed-Solomon codeword of the degree-(k-1) polynomial P, so up to
+// e = (n-k)/2 wrong shares can be corrected by solving the linear system
+//     Q(x_i) = y_i * E(x_i)    for every share i
+// for a monic error locator E of degree e and Q of degree < e+k, then P = Q / E.
+// The system is solved exactly over the rationals with fraction-free (Bareiss)
+// elimination, so the cost is polynomial in n instead of C(n, k).
+final class BerlekampWelchDecoder {
+
+    private BerlekampWelchDecoder() {
+    }
+
+    static SecretSharing.ReconstructionResult decode(Map<Integer, BigInteger> shares, int k) {
+        int n = shares.size();
+        if (n < k) {
+            throw new IllegalArgumentException("Not enough shares to decode. Need " + k + " but only have " + n);
+        }
+        int[] xs = new int[n];
+        BigInteger[] ys = new BigInteger[n];
+        int index = 0;
+        for (Map.Entry<Integer, BigInteger> entry : new TreeMap<>(shares).entrySet()) {
+            xs[index] = entry.getKey();
+            ys[index] = entry.getValue();
+            index++;
+        }
+
+        int e = (n - k) / 2;
+        Rational[] solution = solve(buildSystem(xs, ys, k, e), e + k + e);
+        if (solution == null) {
+            throw new RuntimeException("Berlekamp-Welch decoding failed: more than " + e + " wrong shares");
+        }
+
+        // Q = q_0 .. q_{e+k-1}, E = e_0 .. e_{e-1}, 1
+        Rational[] q = Arrays.copyOfRange(solution, 0, e + k);
+        Rational[] locator = new Rational[e + 1];
+        System.arraycopy(solution, e + k, locator, 0, e);
+        locator[e] = Rational.ONE;
+
+        Rational[] p = dividePolynomial(q, locator);
+        if (p == null) {
+            throw new RuntimeException("Berlekamp-Welch decoding failed: error locator does not divide Q");
+        }
+
+        SecretSharing.ReconstructionResult result = new SecretSharing.ReconstructionResult();
+        for (int i = 0; i < n; i++) {
+            Rational value = evaluate(p, BigInteger.valueOf(xs[i]));
+            if (value.isInteger() && value.numerator.equals(ys[i])) {
+                result.validShares.add(xs[i]);
+            } else {
+                result.wrongShares.add(xs[i]);
+            }
+        }
+        if (result.wrongShares.size() > e) {
+            throw new RuntimeException("Berlekamp-Welch decoding failed: " + result.wrongShares.size()
+                    + " shares disagree with the decoded polynomial, at most " + e + " can be corrected");
+        }
+        if (!p[0].isInteger()) {
+            throw new RuntimeException("Berlekamp-Welch decoding failed: secret " + p[0] + " is not an integer");
+        }
+        result.secret = p[0].numerator;
+        return result;
+    }
+
+    // Augmented integer matrix for the unknowns q_0..q_{e+k-1}, e_0..e_{e-1}:
+    //     sum q_j x_i^j - y_i * sum e_j x_i^j = y_i * x_i^e
+    private static BigInteger[][] buildSystem(int[] xs, BigInteger[] ys, int k, int e) {
+        int n = xs.length;
+        int columns = e + k + e;
+        BigInteger[][] matrix = new BigInteger[n][columns + 1];
+        for (int i = 0; i < n; i++) {
+            BigInteger x = BigInteger.valueOf(xs[i]);
+            BigInteger power = BigInteger.ONE;
+            for (int j = 0; j < e + k; j++) {
+                matrix[i][j] = power;
+                if (j < e) {
+                    matrix[i][e + k + j] = ys[i].multiply(power).negate();
+                }
+                if (j == e) {
+                    matrix[i][columns] = ys[i].multiply(power);
+                }
+                power = power.multiply(x);
+            }
+        }
+        return matrix;
+    }
+
+    // Fraction-free Gaussian elimination; returns one solution (free variables set to zero)
+    // or null if the system is inconsistent
+    private static Rational[] solve(BigInteger[][] matrix, int columns) {
+        int rows = matrix.length;
+        int[] pivotColumns = new int[Math.min(rows, columns)];
+        int rank = 0;
+        BigInteger previousPivot = BigInteger.ONE;
+
+        for (int col = 0; col < columns && rank < rows; col++) {
+            int pivotRow = -1;
+            for (int r = rank; r < rows; r++) {
+                if (matrix[r][col].signum() != 0) {
+                    pivotRow = r;
+                    break;
+                }
+            }
+            if (pivotRow < 0) {
+                continue;
+            }
+            BigInteger[] swap = matrix[rank];
+            matrix[rank] = matrix[pivotRow];
+            matrix[pivotRow] = swap;
+
+            BigInteger[] pivotRowValues = matrix[rank];
+            BigInteger pivot = pivotRowValues[col];
+            for (int r = rank + 1; r < rows; r++) {
+                BigInteger[] row = matrix[r];
+                BigInteger factor = row[col];
+                for (int j = col + 1; j <= columns; j++) {
+                    row[j] = pivot.multiply(row[j]).subtract(factor.multiply(pivotRowValues[j])).divide(previousPivot);
+                }
+                row[col] = BigInteger.ZERO;
+            }
+            previousPivot = pivot;
+            pivotColumns[rank++] = col;
+        }
+
+        for (int r = rank; r < rows; r++) {
+            if (matrix[r][columns].signum() != 0) {
+                return null;
+            }
+        }
+
+        Rational[] solution = new Rational[columns];
+        Arrays.fill(solution, Rational.ZERO);
+        for (int r = rank - 1; r >= 0; r--) {
+            int col = pivotColumns[r];
+            Rational sum = Rational.of(matrix[r][columns]);
+            for (int j = col + 1; j < columns; j++) {
+                if (matrix[r][j].signum() != 0 && !solution[j].isZero()) {
+                    sum = sum.subtract(Rational.of(matrix[r][j]).multiply(solution[j]));
+                }
+            }
+            solution[col] = sum.divide(Rational.of(matrix[r][col]));
+        }
+        return solution;
+    }
+
+    // Exact polynomial division; returns null if there is a remainder
+    private static Rational[] dividePolynomial(Rational[] dividend, Rational[] divisor) {
+        int divisorDegree = divisor.length - 1;
+        Rational[] remainder = dividend.clone();
+        int quotientLength = Math.max(dividend.length - divisorDegree, 1);
+        Rational[] quotient = new Rational[quotientLength];
+        Arrays.fill(quotient, Rational.ZERO);
+        Rational lead = divisor[divisorDegree];
+        for (int i = dividend.length - 1; i >= divisorDegree; i--) {
+            if (remainder[i].isZero()) {
+                continue;
+            }
+            Rational factor = remainder[i].divide(lead);
+            quotient[i - divisorDegree] = factor;
+            for (int j = 0; j <= divisorDegree; j++) {
+                remainder[i - divisorDegree + j] = remainder[i - divisorDegree + j].subtract(factor.multiply(divisor[j]));
+            }
+        }
+        for (int i = 0; i < divisorDegree && i < remainder.length; i++) {
+            if (!remainder[i].isZero()) {
+                return null;
+            }
+        }
+        return quotient;
+    }
+
+    private static Rational evaluate(Rational[] polynomial, BigInteger x) {
+        Rational point = Rational.of(x);
+        Rational result = Rational.ZERO;
+        for (int i = polynomial.length - 1; i >= 0; i--) {
+            result = result.multiply(point).add(polynomial[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package sss;
+
+import java.math.BigInteger;
+
+// Lazy lexicographic enumeration of k-subsets of {0, .., n-1}.
+// The same int[] is updated in place on every step, so walking all C(n, k) subsets
+// allocates nothing. Subsets can also be addressed by their rank, so ranges of the
+// space can be walked independently.
+final class Combinations {
+
+    private final int n;
+    private final int k;
+    private final int[] indices;
+    private boolean started;
+
+    Combinations(int n, int k) {
+        if (k < 0 || k > n) {
+            throw new IllegalArgumentException("Cannot choose " + k + " of " + n);
+        }
+        this.n = n;
+        this.k = k;
+        this.indices = new int[k];
+    }
+
+    // Current subset in increasing order; only valid after next() returned true
+    int[] indices() {
+        return indices;
+    }
+
+    boolean next() {
+        if (!started) {
+            started = true;
+            for (int i = 0; i < k; i++) {
+                indices[i] = i;
+            }
+            return true;
+        }
+        int i = k - 1;
+        while (i >= 0 && indices[i] == n - k + i) {
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        indices[i]++;
+        for (int j = i + 1; j < k; j++) {
+            indices[j] = indices[j - 1] + 1;
+        }
+        return true;
+    }
+
+    // Positions the enumeration on the subset with the given lexicographic rank,
+    // so that the next call to next() returns the subset after it
+    void seek(long rank) {
+        int candidate = 0;
+        for (int i = 0; i < k; i++) {
+            while (true) {
+                long withCandidate = count(n - candidate - 1, k - i - 1).longValueExact();
+                if (rank < withCandidate) {
+                    break;
+                }
+                rank -= withCandidate;
+                candidate++;
+            }
+            indices[i] = candidate++;
+        }
+        started = true;
+    }
+
+    static BigInteger count(int n, int k) {
+        BigInteger result = BigInteger.ONE;
+        for (int i = 0; i < k; i++) {
+            result = result.multiply(BigInteger.valueOf(n - i)).divide(BigInteger.valueOf(i + 1));
+        }
+        return result;
+    }
+}
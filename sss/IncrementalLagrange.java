@@ -0,0 +1,71 @@
+package sss;
+
+import java.math.BigInteger;
+
+// Lagrange basis values at 0 for a subset of shares that changes one share at a time.
+//
+// For the share in slot i the basis value is numerator[i] / denominator[i] with
+//     numerator[i]   = prod_{j != i} (-x_j)
+//     denominator[i] = prod_{j != i} (x_i - x_j)
+// When x_out leaves and x_in enters, every other slot only needs one exact division and
+// one multiplication for each product, and the new slot is built from scratch, so a step
+// costs O(k) BigInteger operations instead of the O(k^2) of a full recomputation.
+// The products are exactly those of lagrangeInterpolation, so results are identical.
+final class IncrementalLagrange {
+
+    private final int[] xs;
+    private final BigInteger[] ys;
+    private final int[] slots;
+    private final BigInteger[] numerators;
+    private final BigInteger[] denominators;
+
+    // slots holds positions into xs/ys and is read on every call, so it can be the live
+    // array of a RevolvingDoorCombinations; all x must be distinct and non-zero
+    IncrementalLagrange(int[] xs, BigInteger[] ys, int[] slots) {
+        this.xs = xs;
+        this.ys = ys;
+        this.slots = slots;
+        this.numerators = new BigInteger[slots.length];
+        this.denominators = new BigInteger[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            rebuild(i);
+        }
+    }
+
+    // Called after slots[slot] changed from position `removed` to a new position
+    void replaced(int slot, int removed) {
+        int xOut = xs[removed];
+        int xIn = xs[slots[slot]];
+        BigInteger oldFactor = BigInteger.valueOf(-xOut);
+        BigInteger newFactor = BigInteger.valueOf(-xIn);
+        for (int i = 0; i < slots.length; i++) {
+            if (i == slot) {
+                continue;
+            }
+            int xi = xs[slots[i]];
+            numerators[i] = numerators[i].divide(oldFactor).multiply(newFactor);
+            denominators[i] = denominators[i].divide(BigInteger.valueOf(xi - xOut)).multiply(BigInteger.valueOf(xi - xIn));
+        }
+        rebuild(slot);
+    }
+
+    // f(0) for the current subset, summed exactly like lagrangeInterpolation does
+    BigInteger secret() {
+        return SecretSharing.sumOverCommonDenominator(ys, slots, numerators, denominators);
+    }
+
+    private void rebuild(int slot) {
+        int xi = xs[slots[slot]];
+        BigInteger numerator = BigInteger.ONE;
+        BigInteger denominator = BigInteger.ONE;
+        for (int j = 0; j < slots.length; j++) {
+            if (j != slot) {
+                int xj = xs[slots[j]];
+                numerator = numerator.multiply(BigInteger.valueOf(-xj));
+                denominator = denominator.multiply(BigInteger.valueOf(xi - xj));
+            }
+        }
+        numerators[slot] = numerator;
+        denominators[slot] = denominator;
+    }
+}
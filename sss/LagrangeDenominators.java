@@ -0,0 +1,173 @@
+package sss;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+// Common denominator of the Lagrange basis values at 0.
+//
+// Every basis denominator is a product of small differences x_i - x_j, so instead of
+// taking the LCM of k big products with gcds, each difference is factored with a cached
+// smallest-prime-factor table. The LCM is then the product of p^(largest exponent of p),
+// and each cofactor LCM / denominator_i is a product of the missing prime powers; both are
+// built from long-sized chunks without any big division.
+final class LagrangeDenominators {
+
+    // Differences up to this size are factored from the sieve; larger ones use gcds
+    static final int SIEVE_LIMIT = 1 << 16;
+
+    // smallestFactor[v] is the smallest prime dividing v, for 2 <= v < length
+    private static volatile int[] smallestFactor = sieve(1024);
+
+    private LagrangeDenominators() {
+    }
+
+    // Fills cofactors[i] = LCM / prod_{j != i} (x_i - x_j) (with its sign) and returns the
+    // positive LCM, or returns null if some difference is too large to factor
+    static BigInteger cofactors(int[] xs, int[] indices, BigInteger[] cofactors) {
+        int k = indices.length;
+        long maxDifference = 0;
+        for (int i = 0; i < k; i++) {
+            for (int j = i + 1; j < k; j++) {
+                long difference = Math.abs((long) xs[indices[i]] - xs[indices[j]]);
+                if (difference == 0) {
+                    throw new IllegalArgumentException("Duplicate x-values not allowed: " + xs[indices[i]]);
+                }
+                maxDifference = Math.max(maxDifference, difference);
+            }
+        }
+        if (maxDifference > SIEVE_LIMIT) {
+            return null;
+        }
+        int[] factors = sieveFor((int) maxDifference);
+
+        // Largest exponent of every prime over all denominators
+        int[] maxExponent = new int[(int) maxDifference + 1];
+        int[] exponent = new int[(int) maxDifference + 1];
+        // A number below 2^16 has at most 6 distinct prime factors
+        int[] touched = new int[Math.min((k - 1) * 6, (int) maxDifference + 1)];
+        for (int i = 0; i < k; i++) {
+            int count = addExponents(xs, indices, i, factors, exponent, touched);
+            for (int t = 0; t < count; t++) {
+                int prime = touched[t];
+                if (exponent[prime] > maxExponent[prime]) {
+                    maxExponent[prime] = exponent[prime];
+                }
+                exponent[prime] = 0;
+            }
+        }
+
+        int[] primes = new int[16];
+        int primeCount = 0;
+        for (int prime = 2; prime < maxExponent.length; prime++) {
+            if (maxExponent[prime] > 0) {
+                if (primeCount == primes.length) {
+                    primes = Arrays.copyOf(primes, primeCount * 2);
+                }
+                primes[primeCount++] = prime;
+            }
+        }
+
+        ChunkedProduct product = new ChunkedProduct();
+        for (int t = 0; t < primeCount; t++) {
+            product.multiplyPower(primes[t], maxExponent[primes[t]]);
+        }
+        BigInteger common = product.result();
+
+        for (int i = 0; i < k; i++) {
+            int count = addExponents(xs, indices, i, factors, exponent, touched);
+            ChunkedProduct cofactor = new ChunkedProduct();
+            for (int t = 0; t < primeCount; t++) {
+                int prime = primes[t];
+                cofactor.multiplyPower(prime, maxExponent[prime] - exponent[prime]);
+            }
+            for (int t = 0; t < count; t++) {
+                exponent[touched[t]] = 0;
+            }
+            // The denominator has one negative factor for every x_j above x_i
+            int xi = xs[indices[i]];
+            boolean negative = false;
+            for (int j = 0; j < k; j++) {
+                if (xs[indices[j]] > xi) {
+                    negative = !negative;
+                }
+            }
+            cofactors[i] = negative ? cofactor.result().negate() : cofactor.result();
+        }
+        return common;
+    }
+
+    // Adds the prime exponents of prod_{j != i} |x_i - x_j| into exponent[] and lists the
+    // distinct primes seen in touched[]; returns how many were listed
+    private static int addExponents(int[] xs, int[] indices, int i, int[] factors, int[] exponent, int[] touched) {
+        int count = 0;
+        int xi = xs[indices[i]];
+        for (int j = 0; j < indices.length; j++) {
+            if (j == i) {
+                continue;
+            }
+            int value = (int) Math.abs((long) xi - xs[indices[j]]);
+            while (value > 1) {
+                int prime = factors[value];
+                if (exponent[prime]++ == 0) {
+                    touched[count++] = prime;
+                }
+                value /= prime;
+            }
+        }
+        return count;
+    }
+
+    private static int[] sieveFor(int limit) {
+        int[] table = smallestFactor;
+        if (limit < table.length) {
+            return table;
+        }
+        synchronized (LagrangeDenominators.class) {
+            table = smallestFactor;
+            if (limit >= table.length) {
+                table = sieve(Math.min(Math.max(limit + 1, table.length * 2), SIEVE_LIMIT + 1));
+                smallestFactor = table;
+            }
+        }
+        return table;
+    }
+
+    private static int[] sieve(int length) {
+        int[] table = new int[length];
+        for (int i = 2; i < length; i++) {
+            if (table[i] == 0) {
+                for (int j = i; j < length; j += i) {
+                    if (table[j] == 0) {
+                        table[j] = i;
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    // Product of small factors, gathered in a long and only moved to BigInteger when full
+    static final class ChunkedProduct {
+        private static final long LIMIT = 1L << 62;
+        private BigInteger value = BigInteger.ONE;
+        private long chunk = 1;
+
+        void multiply(long factor) {
+            if (factor >= LIMIT / chunk) {
+                value = value.multiply(BigInteger.valueOf(chunk));
+                chunk = 1;
+            }
+            chunk *= factor;
+        }
+
+        void multiplyPower(int prime, int exponent) {
+            for (int e = 0; e < exponent; e++) {
+                multiply(prime);
+            }
+        }
+
+        BigInteger result() {
+            return chunk == 1 ? value : value.multiply(BigInteger.valueOf(chunk));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package sss;
+
+// Progress and warning output of the pipeline.
+//
+// The setting travels with the work rather than living in a global: Options carries a Log
+// (QUIET with --quiet, and for batch, server and stream mode) and the pipeline hands it down
+// to the parser, the decoders and the cache, so one quiet SecretReconstructor does not
+// silence another in the same process.
+//
+// Call sites test log.verbose before building a message, so with logging switched off no
+// message strings or number formatting happen on the hot path. Results such as the final
+// "Secret: ..." line are not logging and are printed directly.
+final class Log {
+
+    static final Log STANDARD = new Log(true);
+    static final Log QUIET = new Log(false);
+
+    final boolean verbose;
+
+    private Log(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    static Log of(boolean verbose) {
+        return verbose ? STANDARD : QUIET;
+    }
+
+    void info(String message) {
+        System.out.println(message);
+    }
+
+    void warn(String message) {
+        System.err.println(message);
+    }
+}
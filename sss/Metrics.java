@@ -0,0 +1,159 @@
+package sss;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide counters and per-stage latency histograms for the reconstruction pipeline.
+//
+// Everything is a LongAdder, so worker threads record without contending on a shared
+// cache line, and a stage costs two System.nanoTime() calls plus a few additions.
+// Histograms have power-of-two buckets from 1 us to about 68 s; each observation lands
+// in the bucket of its highest set bit, so no floating point is involved. The searches
+// (combination voting and RANSAC sampling) are timed once per document as ENUMERATE, never
+// per interpolation, and count their tests in their own vote tables, adding the totals once
+// per document.
+//
+// Exported as Prometheus text (version 0.0.4) or as one JSON object.
+final class Metrics {
+
+    // Stages of one reconstruction, in pipeline order
+    enum Stage {
+        READ,        // mapping or draining the input
+        PARSE,       // tokenizing the document
+        DECODE,      // base conversion and expression evaluation of the share values
+        ENUMERATE,   // the whole combination search of one document
+        INTERPOLATE, // one interpolation outside a search: the first k shares, or a streamed share
+        VOTE;        // picking the winning secret and classifying the shares
+
+        final Histogram histogram = new Histogram();
+
+        String metricName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    static final LongAdder RECONSTRUCTIONS = new LongAdder();
+    static final LongAdder RECONSTRUCTION_FAILURES = new LongAdder();
+    static final LongAdder COMBINATIONS_TESTED = new LongAdder();
+    static final LongAdder COMBINATIONS_FAILED = new LongAdder();
+    static final LongAdder BAD_SHARES_FOUND = new LongAdder();
+    static final LongAdder CACHE_HITS = new LongAdder();
+    static final LongAdder CACHE_MISSES = new LongAdder();
+
+    private Metrics() {
+    }
+
+    // Records the time since `start` (a System.nanoTime() value) under the stage
+    static void record(Stage stage, long start) {
+        stage.histogram.record(System.nanoTime() - start);
+    }
+
+    static final class Histogram {
+        // Bucket i counts durations below 2^(FIRST_BUCKET_SHIFT + i) ns; the last one is +Inf
+        private static final int FIRST_BUCKET_SHIFT = 10;
+        private static final int BUCKETS = 27;
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+
+        Histogram() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            int bucket = Math.max(0, 64 - Long.numberOfLeadingZeros(nanos) - FIRST_BUCKET_SHIFT);
+            buckets[Math.min(bucket, BUCKETS - 1)].increment();
+            count.increment();
+            sumNanos.add(nanos);
+        }
+
+        static double upperBoundSeconds(int bucket) {
+            return (1L << (FIRST_BUCKET_SHIFT + bucket)) / 1e9;
+        }
+    }
+
+    static String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        counter(sb, "reconstructions_total", "Documents taken through the pipeline", RECONSTRUCTIONS);
+        counter(sb, "reconstruction_failures_total", "Documents that did not yield a secret", RECONSTRUCTION_FAILURES);
+        counter(sb, "combinations_tested_total", "Share combinations interpolated by the combination search", COMBINATIONS_TESTED);
+        counter(sb, "combinations_failed_total", "Share combinations whose interpolation failed", COMBINATIONS_FAILED);
+        counter(sb, "bad_shares_found_total", "Shares classified as wrong", BAD_SHARES_FOUND);
+        counter(sb, "cache_hits_total", "Share sets whose result was found in the result cache", CACHE_HITS);
+        counter(sb, "cache_misses_total", "Share sets searched and then stored in the result cache", CACHE_MISSES);
+
+        sb.append("# HELP secret_sharing_stage_seconds Latency of each pipeline stage\n");
+        sb.append("# TYPE secret_sharing_stage_seconds histogram\n");
+        for (Stage stage : Stage.values()) {
+            Histogram histogram = stage.histogram;
+            String label = "stage=\"" + stage.metricName() + "\"";
+            long cumulative = 0;
+            for (int i = 0; i < Histogram.BUCKETS - 1; i++) {
+                cumulative += histogram.buckets[i].sum();
+                sb.append("secret_sharing_stage_seconds_bucket{").append(label)
+                  .append(",le=\"").append(formatSeconds(Histogram.upperBoundSeconds(i))).append("\"} ")
+                  .append(cumulative).append('\n');
+            }
+            cumulative += histogram.buckets[Histogram.BUCKETS - 1].sum();
+            sb.append("secret_sharing_stage_seconds_bucket{").append(label).append(",le=\"+Inf\"} ").append(cumulative).append('\n');
+            sb.append("secret_sharing_stage_seconds_sum{").append(label).append("} ")
+              .append(formatSeconds(histogram.sumNanos.sum() / 1e9)).append('\n');
+            sb.append("secret_sharing_stage_seconds_count{").append(label).append("} ").append(histogram.count.sum()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    static String toJson() {
+        StringBuilder sb = new StringBuilder("{\"counters\":{");
+        sb.append("\"reconstructions\":").append(RECONSTRUCTIONS.sum())
+          .append(",\"reconstructionFailures\":").append(RECONSTRUCTION_FAILURES.sum())
+          .append(",\"combinationsTested\":").append(COMBINATIONS_TESTED.sum())
+          .append(",\"combinationsFailed\":").append(COMBINATIONS_FAILED.sum())
+          .append(",\"badSharesFound\":").append(BAD_SHARES_FOUND.sum())
+          .append(",\"cacheHits\":").append(CACHE_HITS.sum())
+          .append(",\"cacheMisses\":").append(CACHE_MISSES.sum())
+          .append("},\"stages\":{");
+        Stage[] stages = Stage.values();
+        for (int s = 0; s < stages.length; s++) {
+            Histogram histogram = stages[s].histogram;
+            if (s > 0) {
+                sb.append(',');
+            }
+            sb.append('"').append(stages[s].metricName()).append("\":{\"count\":").append(histogram.count.sum())
+              .append(",\"sumSeconds\":").append(formatSeconds(histogram.sumNanos.sum() / 1e9))
+              .append(",\"buckets\":[");
+            // Only non-empty buckets, as [upper bound in seconds or null for +Inf, count]
+            boolean first = true;
+            for (int i = 0; i < Histogram.BUCKETS; i++) {
+                long count = histogram.buckets[i].sum();
+                if (count == 0) {
+                    continue;
+                }
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                sb.append('[').append(i == Histogram.BUCKETS - 1 ? "null" : formatSeconds(Histogram.upperBoundSeconds(i)))
+                  .append(',').append(count).append(']');
+            }
+            sb.append("]}");
+        }
+        return sb.append("}}").toString();
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, LongAdder value) {
+        sb.append("# HELP secret_sharing_").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE secret_sharing_").append(name).append(" counter\n");
+        sb.append("secret_sharing_").append(name).append(' ').append(value.sum()).append('\n');
+    }
+
+    private static String formatSeconds(double seconds) {
+        return Double.toString(seconds);
+    }
+}
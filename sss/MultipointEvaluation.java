@@ -0,0 +1,432 @@
+package sss;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Values of one polynomial at many points, over the integers or modulo a prime, for share
+// generation.
+//
+// Horner's rule per point is the default. Modulo a prime, from TREE_THRESHOLD coefficients
+// on, the points are cut into blocks of s >= k points (s a power of two) and each block is
+// evaluated with a subproduct tree: the products of (x - x_i) over halves, quarters, .. of
+// the block are built bottom up, then f is reduced modulo them top down, so every point
+// costs O(M(s) log s / s) instead of O(k). Long polynomial products go through
+// NumberTheoreticTransform, shorter ones through a single BigInteger multiplication
+// (Kronecker substitution); the descent is a scaled remainder tree, so only the root
+// needs a Newton power-series inverse.
+//
+// Residues are kept balanced, in (-p/2, p/2], so the products of (x - x_i) near the leaves
+// have small coefficients and the Kronecker slots are sized from the actual operands.
+// Over the integers there is no such bound: the tree would have to work in Z/2^B with B
+// above the bit length of every f(x), and Horner with small x stays ahead at every degree
+// measured (up to k = 1000), so integer splits always use Horner.
+final class MultipointEvaluation {
+
+    // Number of coefficients from which the subproduct tree beats Horner modulo a 256-bit
+    // prime (5000 points: 3x slower at k = 256, 1.2x faster at k = 512, 5x at k = 1024)
+    static final int TREE_THRESHOLD = 512;
+
+    // Groups of at most this many points are finished with Horner on the remainder
+    private static final int LEAF_POINTS = 16;
+
+    // Polynomial products with both factors at least this long use Kronecker substitution
+    private static final int KRONECKER_LENGTH = 16;
+
+    // Products with both factors at least this long go through NumberTheoreticTransform
+    // (about 1.4x faster than Kronecker at 64 coefficients of 256 bits, 3.7x at 8192)
+    private static final int NTT_LENGTH = 64;
+
+    // Remainders by divisors of at least this degree use the Newton inverse
+    private static final int NEWTON_DEGREE = 32;
+
+    private MultipointEvaluation() {
+    }
+
+    // f(xs[i]) for every i, reduced modulo `modulus` when it is not null; coefficients are
+    // lowest degree first. Chunks of points are evaluated on `parallelism` threads.
+    static BigInteger[] evaluate(BigInteger[] coefficients, int[] xs, BigInteger modulus, int parallelism) {
+        BigInteger[] values = new BigInteger[xs.length];
+        int chunk = chunkSize(coefficients.length, xs.length, modulus, parallelism);
+        if (parallelism <= 1 || xs.length <= chunk) {
+            evaluate(coefficients, xs, 0, xs.length, modulus, values);
+            return values;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int from = 0; from < xs.length; from += chunk) {
+                int start = from;
+                int end = Math.min(xs.length, from + chunk);
+                tasks.add(() -> {
+                    evaluate(coefficients, xs, start, end, modulus, values);
+                    return null;
+                });
+            }
+            for (Future<Void> task : pool.invokeAll(tasks)) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating shares", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return values;
+    }
+
+    // Points per parallel chunk: whole tree blocks, about four chunks per thread
+    static int chunkSize(int coefficientCount, int pointCount, BigInteger modulus, int parallelism) {
+        int block = usesTree(coefficientCount, modulus) ? blockSize(coefficientCount) : LEAF_POINTS;
+        int target = Math.max(block, pointCount / Math.max(1, 4 * parallelism));
+        return (target + block - 1) / block * block;
+    }
+
+    // values[i] = f(xs[i]) for i in [from, to), on the calling thread
+    static void evaluate(BigInteger[] coefficients, int[] xs, int from, int to, BigInteger modulus, BigInteger[] values) {
+        if (usesTree(coefficients.length, modulus)) {
+            subproductTree(coefficients, xs, from, to, modulus, values);
+        } else {
+            horner(coefficients, xs, from, to, modulus, values);
+        }
+    }
+
+    private static boolean usesTree(int coefficientCount, BigInteger modulus) {
+        return modulus != null && coefficientCount >= TREE_THRESHOLD;
+    }
+
+    static void horner(BigInteger[] coefficients, int[] xs, int from, int to, BigInteger modulus, BigInteger[] values) {
+        for (int i = from; i < to; i++) {
+            BigInteger x = BigInteger.valueOf(xs[i]);
+            BigInteger value = coefficients[coefficients.length - 1];
+            for (int j = coefficients.length - 2; j >= 0; j--) {
+                value = value.multiply(x).add(coefficients[j]);
+            }
+            values[i] = modulus == null ? value : value.mod(modulus);
+        }
+    }
+
+    static void subproductTree(BigInteger[] coefficients, int[] xs, int from, int to, BigInteger modulus, BigInteger[] values) {
+        Ring ring = new Ring(modulus);
+        BigInteger[] f = new BigInteger[coefficients.length];
+        for (int j = 0; j < f.length; j++) {
+            f[j] = ring.reduce(coefficients[j]);
+        }
+        int block = blockSize(coefficients.length);
+        for (int start = from; start < to; start += block) {
+            new Block(ring, xs, start, Math.min(to, start + block)).evaluate(f, values);
+        }
+        for (int i = from; i < to; i++) {
+            if (values[i].signum() < 0) {
+                values[i] = values[i].add(modulus);
+            }
+        }
+    }
+
+    // Smallest power of two that is at least the number of coefficients
+    private static int blockSize(int coefficientCount) {
+        return Integer.highestOneBit(Math.max(LEAF_POINTS, coefficientCount) - 1) << 1;
+    }
+
+    // Z/p with balanced residues in (-p/2, p/2], so that polynomials with small
+    // coefficients, such as the products of (x - x_i), keep them small
+    static final class Ring {
+        final BigInteger modulus;
+        private final BigInteger half;
+        private final int smallBits; // values shorter than this are reduced already
+
+        Ring(BigInteger modulus) {
+            this.modulus = modulus;
+            this.half = modulus.shiftRight(1);
+            this.smallBits = modulus.bitLength() - 2;
+        }
+
+        BigInteger reduce(BigInteger value) {
+            if (value.bitLength() < smallBits) {
+                return value;
+            }
+            BigInteger residue = value.mod(modulus);
+            return residue.compareTo(half) > 0 ? residue.subtract(modulus) : residue;
+        }
+
+        BigInteger[] multiply(BigInteger[] a, BigInteger[] b) {
+            if (Math.min(a.length, b.length) < KRONECKER_LENGTH) {
+                BigInteger[] product = new BigInteger[a.length + b.length - 1];
+                Arrays.fill(product, BigInteger.ZERO);
+                for (int i = 0; i < a.length; i++) {
+                    if (a[i].signum() == 0) {
+                        continue;
+                    }
+                    for (int j = 0; j < b.length; j++) {
+                        product[i + j] = product[i + j].add(a[i].multiply(b[j]));
+                    }
+                }
+                for (int i = 0; i < product.length; i++) {
+                    product[i] = reduce(product[i]);
+                }
+                return product;
+            }
+            if (Math.min(a.length, b.length) >= NTT_LENGTH) {
+                BigInteger[] product = NumberTheoreticTransform.multiply(a, b);
+                if (product != null) {
+                    for (int i = 0; i < product.length; i++) {
+                        product[i] = reduce(product[i]);
+                    }
+                    return product;
+                }
+            }
+            // |product coefficient| < min(len) * max|a| * max|b|, plus a sign bit; the slots
+            // are sized from the actual coefficients, so small factors stay cheap
+            int slotBits = maxBitLength(a) + maxBitLength(b) + 34 - Integer.numberOfLeadingZeros(Math.min(a.length, b.length));
+            int slotBytes = (slotBits + 7) / 8;
+            BigInteger packed = pack(a, slotBytes).multiply(pack(b, slotBytes));
+            return unpack(packed, a.length + b.length - 1, slotBytes);
+        }
+
+        private static int maxBitLength(BigInteger[] poly) {
+            int bits = 0;
+            for (BigInteger coefficient : poly) {
+                bits = Math.max(bits, coefficient.bitLength());
+            }
+            return bits;
+        }
+
+        // sum poly[i] * 2^(8 * slotBytes * i), as the difference of its positive and negative parts
+        private static BigInteger pack(BigInteger[] poly, int slotBytes) {
+            byte[] positive = new byte[poly.length * slotBytes];
+            byte[] negative = null;
+            for (int i = 0; i < poly.length; i++) {
+                byte[] target = positive;
+                BigInteger coefficient = poly[i];
+                if (coefficient.signum() < 0) {
+                    if (negative == null) {
+                        negative = new byte[positive.length];
+                    }
+                    target = negative;
+                    coefficient = coefficient.negate();
+                }
+                byte[] magnitude = coefficient.toByteArray();
+                int length = Math.min(magnitude.length, slotBytes);
+                System.arraycopy(magnitude, magnitude.length - length, target, target.length - i * slotBytes - length, length);
+            }
+            BigInteger packed = new BigInteger(1, positive);
+            return negative == null ? packed : packed.subtract(new BigInteger(1, negative));
+        }
+
+        // Splits a packed product back into balanced digits, carrying into the next slot
+        private BigInteger[] unpack(BigInteger packed, int length, int slotBytes) {
+            byte[] bytes = packed.toByteArray(); // two's complement, big-endian
+            byte fill = (byte) (packed.signum() < 0 ? -1 : 0);
+            BigInteger slotModulus = BigInteger.ONE.shiftLeft(8 * slotBytes);
+            BigInteger[] poly = new BigInteger[length];
+            byte[] slot = new byte[slotBytes];
+            boolean carry = false;
+            for (int i = 0; i < length; i++) {
+                for (int b = 0; b < slotBytes; b++) {
+                    int index = bytes.length - 1 - (i * slotBytes + b);
+                    slot[slotBytes - 1 - b] = index >= 0 ? bytes[index] : fill;
+                }
+                BigInteger digit = new BigInteger(1, slot);
+                if (carry) {
+                    digit = digit.add(BigInteger.ONE);
+                }
+                carry = digit.testBit(8 * slotBytes - 1) || digit.equals(slotModulus);
+                poly[i] = reduce(carry ? digit.subtract(slotModulus) : digit);
+            }
+            return poly;
+        }
+
+        // Coefficients deg b .. deg b + length - 1 of a * b, for a.length >= deg b + length
+        BigInteger[] middleProduct(BigInteger[] a, BigInteger[] b, int length) {
+            return coefficients(a, b, b.length - 1, b.length - 1 + length);
+        }
+
+        // Coefficients from .. to - 1 of a * b. A cyclic product only folds the coefficients
+        // from its length on back onto the lowest ones, so when those below `from` absorb
+        // them, the transform needs to cover just max(to, deg(a * b) + 1 - from) points.
+        private BigInteger[] coefficients(BigInteger[] a, BigInteger[] b, int from, int to) {
+            if (Math.min(a.length, b.length) >= NTT_LENGTH) {
+                int wrapped = a.length + b.length - 1 - from;
+                int logLength = 32 - Integer.numberOfLeadingZeros(Math.max(to, Math.max(wrapped, Math.max(a.length, b.length))) - 1);
+                BigInteger[] product = NumberTheoreticTransform.multiplyCyclic(a, b, logLength);
+                if (product != null) {
+                    BigInteger[] range = Arrays.copyOfRange(product, from, to);
+                    for (int i = 0; i < range.length; i++) {
+                        range[i] = reduce(range[i]);
+                    }
+                    return range;
+                }
+            }
+            return Arrays.copyOfRange(multiply(a, b), from, to);
+        }
+
+        // a mod b for a monic b
+        BigInteger[] remainder(BigInteger[] a, BigInteger[] b) {
+            int degree = b.length - 1;
+            if (a.length <= degree) {
+                return a;
+            }
+            if (degree < NEWTON_DEGREE) {
+                BigInteger[] r = a.clone();
+                for (int i = r.length - 1; i >= degree; i--) {
+                    BigInteger q = r[i];
+                    if (q.signum() == 0) {
+                        continue;
+                    }
+                    for (int j = 0; j < degree; j++) {
+                        r[i - degree + j] = reduce(r[i - degree + j].subtract(q.multiply(b[j])));
+                    }
+                }
+                return Arrays.copyOf(r, degree);
+            }
+            // Quotient from the reversed polynomials: rev(q) = rev(a) / rev(b) mod x^(deg a - deg b + 1)
+            int quotientLength = a.length - degree;
+            BigInteger[] reversedQuotient = truncate(multiply(truncate(reverse(a), quotientLength),
+                    inverse(reverse(b), quotientLength)), quotientLength);
+            BigInteger[] product = multiply(reverse(reversedQuotient), b);
+            BigInteger[] r = new BigInteger[degree];
+            for (int i = 0; i < degree; i++) {
+                r[i] = reduce(a[i].subtract(product[i]));
+            }
+            return r;
+        }
+
+        // 1 / h mod x^length for h[0] = 1, by Newton iteration g <- g * (2 - h * g)
+        BigInteger[] inverse(BigInteger[] h, int length) {
+            BigInteger[] g = {BigInteger.ONE};
+            while (g.length < length) {
+                // h * g = 1 + x^n * e mod x^2n for the n coefficients known, and the next
+                // ones are -g * e; only e, the upper half of h * g, has to be computed
+                int known = g.length;
+                int precision = Math.min(2 * known, length);
+                BigInteger[] error = coefficients(truncate(h, precision), g, known, precision);
+                BigInteger[] correction = multiply(truncate(g, precision - known), error);
+                g = Arrays.copyOf(g, precision);
+                for (int i = known; i < precision; i++) {
+                    g[i] = reduce(correction[i - known].negate());
+                }
+            }
+            return g;
+        }
+
+        static BigInteger[] reverse(BigInteger[] poly) {
+            BigInteger[] reversed = new BigInteger[poly.length];
+            for (int i = 0; i < poly.length; i++) {
+                reversed[i] = poly[poly.length - 1 - i];
+            }
+            return reversed;
+        }
+
+        static BigInteger[] truncate(BigInteger[] poly, int length) {
+            if (poly.length == length) {
+                return poly;
+            }
+            BigInteger[] truncated = Arrays.copyOf(poly, length);
+            for (int i = poly.length; i < length; i++) {
+                truncated[i] = BigInteger.ZERO;
+            }
+            return truncated;
+        }
+    }
+
+    // Subproduct tree over xs[from, to): levels[0] are groups of LEAF_POINTS points, each
+    // further level multiplies pairs of groups
+    static final class Block {
+        private final Ring ring;
+        private final int[] xs;
+        private final int from;
+        private final int to;
+        private final List<BigInteger[][]> levels = new ArrayList<>();
+
+        Block(Ring ring, int[] xs, int from, int to) {
+            this.ring = ring;
+            this.xs = xs;
+            this.from = from;
+            this.to = to;
+            int groups = (to - from + LEAF_POINTS - 1) / LEAF_POINTS;
+            BigInteger[][] leaves = new BigInteger[groups][];
+            for (int g = 0; g < groups; g++) {
+                BigInteger[] product = {BigInteger.ONE};
+                for (int i = from + g * LEAF_POINTS; i < Math.min(to, from + (g + 1) * LEAF_POINTS); i++) {
+                    product = ring.multiply(product, new BigInteger[] {BigInteger.valueOf(-(long) xs[i]), BigInteger.ONE});
+                }
+                leaves[g] = product;
+            }
+            levels.add(leaves);
+            while (levels.get(levels.size() - 1).length > 1) {
+                BigInteger[][] below = levels.get(levels.size() - 1);
+                BigInteger[][] level = new BigInteger[(below.length + 1) / 2][];
+                for (int i = 0; i < level.length; i++) {
+                    level[i] = 2 * i + 1 < below.length ? ring.multiply(below[2 * i], below[2 * i + 1]) : below[2 * i];
+                }
+                levels.add(level);
+            }
+        }
+
+        // prod (x - x_i) over the block
+        BigInteger[] product() {
+            return levels.get(levels.size() - 1)[0];
+        }
+
+        // values[i] = f(xs[i]) for the block's points, as balanced residues.
+        //
+        // Scaled remainder tree: instead of f mod P at every node, the descent carries the
+        // first deg P coefficients of the expansion of (f mod P) / P in 1/x. Only the root
+        // needs a power-series inverse; a child L of P = L * S gets its expansion as the
+        // middle coefficients of (that of P) * S, one product per node and no division.
+        void evaluate(BigInteger[] f, BigInteger[] values) {
+            int top = levels.size() - 1;
+            BigInteger[] root = levels.get(top)[0];
+            int degree = root.length - 1;
+            BigInteger[] remainder = ring.remainder(f, root);
+            // (f mod P) / P = x^-1 * rev(f mod P) / rev(P) in 1/x, f mod P padded to deg P terms
+            BigInteger[] reversed = new BigInteger[degree];
+            for (int i = 0; i < degree; i++) {
+                int source = degree - 1 - i;
+                reversed[i] = source < remainder.length ? remainder[source] : BigInteger.ZERO;
+            }
+            BigInteger[][] expansions = {Ring.truncate(ring.multiply(reversed, ring.inverse(Ring.reverse(root), degree)), degree)};
+            for (int l = top - 1; l >= 0; l--) {
+                BigInteger[][] level = levels.get(l);
+                BigInteger[][] next = new BigInteger[level.length][];
+                for (int i = 0; i < level.length; i++) {
+                    BigInteger[] parent = expansions[i / 2];
+                    if (levels.get(l + 1)[i / 2] == level[i]) {
+                        next[i] = parent;
+                    } else {
+                        next[i] = ring.middleProduct(parent, Ring.reverse(level[i ^ 1]), level[i].length - 1);
+                    }
+                }
+                expansions = next;
+            }
+            for (int g = 0; g < expansions.length; g++) {
+                // f mod P is the polynomial part of P times the expansion
+                BigInteger[] p = levels.get(0)[g];
+                BigInteger[] t = expansions[g];
+                BigInteger[] r = new BigInteger[p.length - 1];
+                for (int e = 0; e < r.length; e++) {
+                    BigInteger sum = BigInteger.ZERO;
+                    for (int j = e + 1; j < p.length; j++) {
+                        sum = sum.add(p[j].multiply(t[j - e - 1]));
+                    }
+                    r[e] = sum;
+                }
+                for (int i = from + g * LEAF_POINTS; i < Math.min(to, from + (g + 1) * LEAF_POINTS); i++) {
+                    BigInteger x = BigInteger.valueOf(xs[i]);
+                    BigInteger value = BigInteger.ZERO;
+                    for (int j = r.length - 1; j >= 0; j--) {
+                        value = value.multiply(x).add(r[j]);
+                    }
+                    values[i] = ring.reduce(value);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package sss;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+// Newton form of the polynomial through the shares received so far, built one share at a
+// time for the streaming mode.
+//
+// The table keeps the last diagonal of divided differences, diagonal[i] = f[x_i, .., x_m-1].
+// A new share (x_m, y_m) extends it from the bottom up,
+//     f[x_i, .., x_m] = (f[x_i+1, .., x_m] - f[x_i, .., x_m-1]) / (x_m - x_i),
+// and the top entry f[x_0, .., x_m] is the next Newton coefficient, so adding a share costs
+// O(m) operations and nothing computed earlier changes. Evaluating the polynomial (at 0
+// for the secret, at a later share's x to check it) is a Horner pass over the coefficients.
+// Over the integers the divided differences are fractions; over GF(p) they are Montgomery
+// field elements, with all m differences x_m - x_i inverted by one batch inversion.
+abstract class NewtonInterpolation {
+
+    int[] xs = new int[8];
+    int count;
+
+    static NewtonInterpolation create(PrimeField field) {
+        return field == null ? new Integers() : new Field(field);
+    }
+
+    int size() {
+        return count;
+    }
+
+    boolean contains(int x) {
+        for (int i = 0; i < count; i++) {
+            if (xs[i] == x) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Extends the table by one share; x must differ from every x already added
+    void add(int x, BigInteger y) {
+        if (contains(x)) {
+            throw new IllegalArgumentException("Share " + x + " was already received");
+        }
+        if (count == xs.length) {
+            xs = Arrays.copyOf(xs, count * 2);
+        }
+        extend(x, y);
+        xs[count++] = x;
+    }
+
+    // p(0) for the polynomial through the first `terms` shares, or null over the
+    // integers when it is not an integer (so one of those shares is wrong)
+    abstract BigInteger valueAtZero(int terms);
+
+    // Whether (x, y) lies on the polynomial through the first `terms` shares
+    abstract boolean matches(int x, BigInteger y, int terms);
+
+    abstract void extend(int x, BigInteger y);
+
+    // Divided differences as reduced fractions with a positive denominator
+    private static final class Integers extends NewtonInterpolation {
+        private BigInteger[] diagonalNumerators = new BigInteger[8];
+        private BigInteger[] diagonalDenominators = new BigInteger[8];
+        private BigInteger[] coefficientNumerators = new BigInteger[8];
+        private BigInteger[] coefficientDenominators = new BigInteger[8];
+
+        @Override
+        void extend(int x, BigInteger y) {
+            if (count + 1 > diagonalNumerators.length) {
+                int capacity = diagonalNumerators.length * 2;
+                diagonalNumerators = Arrays.copyOf(diagonalNumerators, capacity);
+                diagonalDenominators = Arrays.copyOf(diagonalDenominators, capacity);
+                coefficientNumerators = Arrays.copyOf(coefficientNumerators, capacity);
+                coefficientDenominators = Arrays.copyOf(coefficientDenominators, capacity);
+            }
+            BigInteger numerator = y;
+            BigInteger denominator = BigInteger.ONE;
+            for (int i = count - 1; i >= 0; i--) {
+                // (current - diagonal[i]) / (x - x_i)
+                BigInteger nextNumerator = numerator.multiply(diagonalDenominators[i])
+                        .subtract(diagonalNumerators[i].multiply(denominator));
+                BigInteger nextDenominator = denominator.multiply(diagonalDenominators[i])
+                        .multiply(BigInteger.valueOf((long) x - xs[i]));
+                diagonalNumerators[i + 1] = numerator;
+                diagonalDenominators[i + 1] = denominator;
+                BigInteger[] reduced = reduce(nextNumerator, nextDenominator);
+                numerator = reduced[0];
+                denominator = reduced[1];
+            }
+            diagonalNumerators[0] = numerator;
+            diagonalDenominators[0] = denominator;
+            coefficientNumerators[count] = numerator;
+            coefficientDenominators[count] = denominator;
+        }
+
+        @Override
+        BigInteger valueAtZero(int terms) {
+            BigInteger[] value = evaluate(0, terms);
+            return value[1].equals(BigInteger.ONE) ? value[0] : null;
+        }
+
+        @Override
+        boolean matches(int x, BigInteger y, int terms) {
+            BigInteger[] value = evaluate(x, terms);
+            return value[1].equals(BigInteger.ONE) && value[0].equals(y);
+        }
+
+        // {numerator, denominator} of p(t), Horner from the highest coefficient down
+        private BigInteger[] evaluate(int t, int terms) {
+            BigInteger numerator = coefficientNumerators[terms - 1];
+            BigInteger denominator = coefficientDenominators[terms - 1];
+            for (int j = terms - 2; j >= 0; j--) {
+                // c_j + (t - x_j) * value
+                BigInteger scaled = numerator.multiply(BigInteger.valueOf((long) t - xs[j]));
+                BigInteger[] reduced = reduce(
+                        coefficientNumerators[j].multiply(denominator).add(scaled.multiply(coefficientDenominators[j])),
+                        coefficientDenominators[j].multiply(denominator));
+                numerator = reduced[0];
+                denominator = reduced[1];
+            }
+            return new BigInteger[] {numerator, denominator};
+        }
+
+        private static BigInteger[] reduce(BigInteger numerator, BigInteger denominator) {
+            if (denominator.signum() < 0) {
+                numerator = numerator.negate();
+                denominator = denominator.negate();
+            }
+            BigInteger gcd = numerator.gcd(denominator);
+            if (!gcd.equals(BigInteger.ONE) && gcd.signum() != 0) {
+                numerator = numerator.divide(gcd);
+                denominator = denominator.divide(gcd);
+            }
+            return new BigInteger[] {numerator, denominator};
+        }
+    }
+
+    // Divided differences as Montgomery elements of GF(p)
+    private static final class Field extends NewtonInterpolation {
+        private final PrimeField field;
+        private final long[] scratch;
+        private int[][] diagonal = new int[8][];
+        private int[][] coefficients = new int[8][];
+
+        Field(PrimeField field) {
+            this.field = field;
+            this.scratch = new long[field.toMontgomery(BigInteger.ZERO).length + 3];
+        }
+
+        @Override
+        void extend(int x, BigInteger y) {
+            if (count + 1 > diagonal.length) {
+                diagonal = Arrays.copyOf(diagonal, diagonal.length * 2);
+                coefficients = Arrays.copyOf(coefficients, coefficients.length * 2);
+            }
+            int[][] inverses = new int[count][];
+            for (int i = 0; i < count; i++) {
+                inverses[i] = element((long) x - xs[i]);
+            }
+            field.batchInvert(inverses, scratch);
+
+            int[] current = field.toMontgomery(y);
+            for (int i = count - 1; i >= 0; i--) {
+                int[] next = new int[current.length];
+                field.subtract(current, diagonal[i], next);
+                field.multiply(next, inverses[i], next, scratch);
+                diagonal[i + 1] = current;
+                current = next;
+            }
+            diagonal[0] = current;
+            coefficients[count] = current;
+        }
+
+        @Override
+        BigInteger valueAtZero(int terms) {
+            return field.fromMontgomery(evaluate(0, terms));
+        }
+
+        @Override
+        boolean matches(int x, BigInteger y, int terms) {
+            return field.fromMontgomery(evaluate(x, terms)).equals(y.mod(field.modulus));
+        }
+
+        private int[] evaluate(int t, int terms) {
+            int[] value = coefficients[terms - 1].clone();
+            for (int j = terms - 2; j >= 0; j--) {
+                field.multiply(value, element((long) t - xs[j]), value, scratch);
+                field.add(value, coefficients[j], value);
+            }
+            return value;
+        }
+
+        private int[] element(long value) {
+            return field.toMontgomery(BigInteger.valueOf(value));
+        }
+    }
+}
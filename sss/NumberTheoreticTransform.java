@@ -0,0 +1,359 @@
+package sss;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+// Exact products of polynomials with large integer coefficients by number-theoretic
+// transforms, for the subproduct trees of MultipointEvaluation and FastInterpolation.
+//
+// BigInteger has no FFT multiplication, so a Kronecker product of two long polynomials
+// with 256-bit coefficients ends up in Toom-Cook on multi-megabit numbers. Here every
+// coefficient is reduced instead modulo as many word-sized primes q = c * 2^20 + 1
+// (2^61 < q < 2^62) as the product coefficients need, each prime gets its own cyclic
+// convolution in O(N log N) word operations, and Garner's algorithm recombines the
+// residues of each product coefficient into a signed BigInteger. All modular products
+// are 64-bit Montgomery multiplications, so the inner loops have no division.
+final class NumberTheoreticTransform {
+
+    // Transforms are at most 2^MAX_LOG_LENGTH points long
+    private static final int MAX_LOG_LENGTH = 20;
+    // Enough for the products of coefficients of up to about 1900 bits
+    private static final int PRIME_COUNT = 64;
+
+    private static final Prime[] PRIMES = findPrimes();
+    // INVERSES[j][i] = q_j^-1 mod q_i for j < i in Montgomery form, for Garner's algorithm
+    private static final long[][] INVERSES = inverses();
+    // HALVES[count] = mixed-radix digits of (q_0 * .. * q_count-1) / 2, the largest positive value
+    private static final long[][] HALVES = halves();
+
+    private NumberTheoreticTransform() {
+    }
+
+    // The product of two polynomials with integer coefficients (lowest degree first), or
+    // null if it is too long or its coefficients too large for the available primes
+    static BigInteger[] multiply(BigInteger[] a, BigInteger[] b) {
+        int length = a.length + b.length - 1;
+        return convolve(a, b, 32 - Integer.numberOfLeadingZeros(length - 1), length);
+    }
+
+    // The product modulo x^size - 1 for size = 2^logLength, i.e. with the coefficients
+    // from size on added to those from 0 on; for middle products, where only coefficients
+    // clear of the wrapped ones are needed and half the transform length suffices
+    static BigInteger[] multiplyCyclic(BigInteger[] a, BigInteger[] b, int logLength) {
+        return convolve(a, b, logLength, Math.min(1 << logLength, a.length + b.length - 1));
+    }
+
+    private static BigInteger[] convolve(BigInteger[] a, BigInteger[] b, int logLength, int length) {
+        int size = 1 << logLength;
+        if (logLength > MAX_LOG_LENGTH || a.length > size || b.length > size) {
+            return null;
+        }
+        // |coefficient| < 2 * min(len) * max|a| * max|b| (the 2 for wrapped terms),
+        // recovered from [-Q/2, Q/2)
+        int bits = maxBitLength(a) + maxBitLength(b) + 35 - Integer.numberOfLeadingZeros(Math.min(a.length, b.length)) + 1;
+        int count = (bits + 60) / 61;
+        if (count > PRIMES.length) {
+            return null;
+        }
+        long[][] residuesA = residues(a, count, size);
+        long[][] residuesB = residues(b, count, size);
+        for (int p = 0; p < count; p++) {
+            Prime prime = PRIMES[p];
+            long[] x = residuesA[p];
+            long[] y = residuesB[p];
+            prime.transform(x, logLength, false);
+            prime.transform(y, logLength, false);
+            for (int i = 0; i < size; i++) {
+                x[i] = prime.multiply(x[i], y[i]); // x * y / R
+            }
+            prime.transform(x, logLength, true);
+            long scale = prime.scale(logLength); // R^2 / size
+            for (int i = 0; i < length; i++) {
+                x[i] = prime.multiply(x[i], scale);
+            }
+        }
+        return recombine(residuesA, count, length);
+    }
+
+    private static int maxBitLength(BigInteger[] poly) {
+        int bits = 0;
+        for (BigInteger coefficient : poly) {
+            bits = Math.max(bits, coefficient.bitLength());
+        }
+        return bits;
+    }
+
+    // residues[p][i] = poly[i] mod q_p, zero-padded to the transform size
+    private static long[][] residues(BigInteger[] poly, int count, int size) {
+        long[][] residues = new long[count][size];
+        long[] words = new long[0];
+        for (int i = 0; i < poly.length; i++) {
+            BigInteger coefficient = poly[i];
+            if (coefficient.signum() == 0) {
+                continue;
+            }
+            byte[] bytes = coefficient.abs().toByteArray();
+            int wordCount = (bytes.length + 3) / 4;
+            if (words.length < wordCount) {
+                words = new long[wordCount];
+            }
+            // Big-endian 32-bit words of the magnitude
+            for (int w = 0; w < wordCount; w++) {
+                long word = 0;
+                for (int j = bytes.length - 4 * (wordCount - w); j < bytes.length - 4 * (wordCount - w - 1); j++) {
+                    word = (word << 8) | (j >= 0 ? bytes[j] & 0xFF : 0);
+                }
+                words[w] = word;
+            }
+            for (int p = 0; p < count; p++) {
+                Prime prime = PRIMES[p];
+                long r = 0;
+                for (int w = 0; w < wordCount; w++) {
+                    r = prime.multiply(r, prime.twoTo32) + words[w];
+                    if (r >= prime.q) {
+                        r -= prime.q;
+                    }
+                }
+                residues[p][i] = coefficient.signum() < 0 && r != 0 ? prime.q - r : r;
+            }
+        }
+        return residues;
+    }
+
+    // Garner's algorithm: mixed-radix digits v with x = v_0 + q_0 (v_1 + q_1 (v_2 + ..)),
+    // then the balanced value, x - Q when x > (Q - 1) / 2
+    private static BigInteger[] recombine(long[][] residues, int count, int length) {
+        long[] half = HALVES[count];
+        BigInteger[] result = new BigInteger[length];
+        long[] digits = new long[count];
+        long[] limbs = new long[count + 1];
+        for (int i = 0; i < length; i++) {
+            for (int p = 0; p < count; p++) {
+                Prime prime = PRIMES[p];
+                long q = prime.q;
+                long x = residues[p][i];
+                for (int j = 0; j < p; j++) {
+                    // digits[j] < q_j < 2q
+                    long digit = digits[j] >= q ? digits[j] - q : digits[j];
+                    x -= digit;
+                    if (x < 0) {
+                        x += q;
+                    }
+                    x = prime.multiply(x, INVERSES[j][p]);
+                }
+                digits[p] = x;
+            }
+            boolean negative = false;
+            for (int p = count - 1; p >= 0; p--) {
+                if (digits[p] != half[p]) {
+                    negative = digits[p] > half[p];
+                    break;
+                }
+            }
+            if (negative) {
+                // Q - x = (Q - 1 - x) + 1, and Q - 1 - x has the digits q_p - 1 - v_p
+                for (int p = 0; p < count; p++) {
+                    digits[p] = PRIMES[p].q - 1 - digits[p];
+                }
+            }
+            result[i] = toBigInteger(digits, count, limbs, negative);
+        }
+        return result;
+    }
+
+    // Horner over the mixed-radix digits in unsigned 64-bit limbs, little-endian
+    private static BigInteger toBigInteger(long[] digits, int count, long[] limbs, boolean negative) {
+        int used = 1;
+        limbs[0] = digits[count - 1];
+        for (int p = count - 2; p >= 0; p--) {
+            long carry = digits[p];
+            long q = PRIMES[p].q;
+            for (int l = 0; l < used; l++) {
+                long low = limbs[l] * q;
+                long high = unsignedMultiplyHigh(limbs[l], q);
+                long sum = low + carry;
+                if (Long.compareUnsigned(sum, low) < 0) {
+                    high++;
+                }
+                limbs[l] = sum;
+                carry = high;
+            }
+            if (carry != 0) {
+                limbs[used++] = carry;
+            }
+        }
+        if (negative) {
+            for (int l = 0; l < used; l++) {
+                if (++limbs[l] != 0) {
+                    break;
+                }
+                if (l == used - 1) {
+                    limbs[used++] = 1;
+                    break;
+                }
+            }
+        }
+        byte[] bytes = new byte[8 * used];
+        for (int l = 0; l < used; l++) {
+            long limb = limbs[l];
+            int offset = bytes.length - 8 * (l + 1);
+            for (int b = 7; b >= 0; b--) {
+                bytes[offset + b] = (byte) limb;
+                limb >>>= 8;
+            }
+        }
+        return new BigInteger(negative ? -1 : 1, bytes);
+    }
+
+    // High word of the unsigned 128-bit product (Math.unsignedMultiplyHigh from Java 18)
+    private static long unsignedMultiplyHigh(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    private static long[][] halves() {
+        long[][] halves = new long[PRIMES.length + 1][];
+        BigInteger product = BigInteger.ONE;
+        for (int count = 1; count <= PRIMES.length; count++) {
+            product = product.multiply(BigInteger.valueOf(PRIMES[count - 1].q));
+            BigInteger value = product.shiftRight(1);
+            long[] digits = new long[count];
+            for (int p = 0; p < count; p++) {
+                BigInteger[] quotientAndRemainder = value.divideAndRemainder(BigInteger.valueOf(PRIMES[p].q));
+                digits[p] = quotientAndRemainder[1].longValue();
+                value = quotientAndRemainder[0];
+            }
+            halves[count] = digits;
+        }
+        return halves;
+    }
+
+    private static Prime[] findPrimes() {
+        List<Prime> primes = new ArrayList<>();
+        for (long c = (1L << (62 - MAX_LOG_LENGTH)) - 1; primes.size() < PRIME_COUNT; c--) {
+            long q = (c << MAX_LOG_LENGTH) + 1;
+            if (BigInteger.valueOf(q).isProbablePrime(40)) {
+                primes.add(new Prime(q));
+            }
+        }
+        return primes.toArray(new Prime[0]);
+    }
+
+    private static long[][] inverses() {
+        long[][] inverses = new long[PRIMES.length][PRIMES.length];
+        for (int j = 0; j < PRIMES.length; j++) {
+            for (int i = j + 1; i < PRIMES.length; i++) {
+                long inverse = BigInteger.valueOf(PRIMES[j].q).modInverse(BigInteger.valueOf(PRIMES[i].q)).longValue();
+                inverses[j][i] = PRIMES[i].toMontgomery(inverse);
+            }
+        }
+        return inverses;
+    }
+
+    private static final class Prime {
+        final long q;
+        final long twoTo32;             // 2^32 in Montgomery form
+        private final long qNegInverse; // -q^-1 mod 2^64
+        private final long rSquared;    // R^2 mod q, R = 2^64
+        // rootPowers[l] and inversePowers[l]: a primitive 2^l-th root of unity and its
+        // inverse, in Montgomery form
+        private final long[] rootPowers = new long[MAX_LOG_LENGTH + 1];
+        private final long[] inversePowers = new long[MAX_LOG_LENGTH + 1];
+        // Powers w^j, j < 2^(l-1), of the 2^l-th roots above, built on first use
+        private final long[][] forwardTwiddles = new long[MAX_LOG_LENGTH + 1][];
+        private final long[][] inverseTwiddles = new long[MAX_LOG_LENGTH + 1][];
+
+        Prime(long q) {
+            this.q = q;
+            BigInteger bigQ = BigInteger.valueOf(q);
+            BigInteger r = BigInteger.ONE.shiftLeft(64);
+            this.qNegInverse = r.subtract(bigQ.modInverse(r)).longValue();
+            this.rSquared = r.multiply(r).mod(bigQ).longValue();
+            this.twoTo32 = toMontgomery(1L << 32);
+            // g^c has order exactly 2^MAX_LOG_LENGTH when its 2^(MAX_LOG_LENGTH-1)-th power is -1
+            BigInteger exponent = BigInteger.valueOf((q - 1) >> MAX_LOG_LENGTH);
+            BigInteger root = null;
+            for (long g = 2; root == null; g++) {
+                BigInteger candidate = BigInteger.valueOf(g).modPow(exponent, bigQ);
+                if (candidate.modPow(BigInteger.ONE.shiftLeft(MAX_LOG_LENGTH - 1), bigQ).longValue() == q - 1) {
+                    root = candidate;
+                }
+            }
+            BigInteger inverse = root.modInverse(bigQ);
+            for (int l = MAX_LOG_LENGTH; l >= 0; l--) {
+                rootPowers[l] = toMontgomery(root.longValue());
+                inversePowers[l] = toMontgomery(inverse.longValue());
+                root = root.multiply(root).mod(bigQ);
+                inverse = inverse.multiply(inverse).mod(bigQ);
+            }
+        }
+
+        // a * b / 2^64 mod q, for a, b < q
+        long multiply(long a, long b) {
+            long low = a * b;
+            long high = Math.multiplyHigh(a, b);
+            long m = low * qNegInverse;
+            // low + m * q is 0 mod 2^64 and carries out of the low word unless low is 0
+            long u = high + unsignedMultiplyHigh(m, q) + (low != 0 ? 1 : 0);
+            return u >= q ? u - q : u;
+        }
+
+        long toMontgomery(long a) {
+            return multiply(a, rSquared);
+        }
+
+        // Multiplier that undoes the 1/R of the pointwise product and the size factor
+        // of the inverse transform
+        long scale(int logLength) {
+            long sizeInverse = BigInteger.ONE.shiftLeft(logLength).modInverse(BigInteger.valueOf(q)).longValue();
+            return toMontgomery(toMontgomery(sizeInverse));
+        }
+
+        private synchronized long[] twiddles(int logLength, boolean inverse) {
+            long[][] cache = inverse ? inverseTwiddles : forwardTwiddles;
+            if (cache[logLength] == null) {
+                long[] table = new long[Math.max(1, 1 << (logLength - 1))];
+                long step = inverse ? inversePowers[logLength] : rootPowers[logLength];
+                long power = toMontgomery(1);
+                for (int j = 0; j < table.length; j++) {
+                    table[j] = power;
+                    power = multiply(power, step);
+                }
+                cache[logLength] = table;
+            }
+            return cache[logLength];
+        }
+
+        // In-place iterative Cooley-Tukey transform of length 2^logLength
+        void transform(long[] a, int logLength, boolean inverse) {
+            int n = 1 << logLength;
+            for (int i = 1, j = 0; i < n; i++) {
+                int bit = n >> 1;
+                for (; (j & bit) != 0; bit >>= 1) {
+                    j ^= bit;
+                }
+                j ^= bit;
+                if (i < j) {
+                    long swap = a[i];
+                    a[i] = a[j];
+                    a[j] = swap;
+                }
+            }
+            long[] twiddles = twiddles(logLength, inverse);
+            for (int l = 1; l <= logLength; l++) {
+                int half = 1 << (l - 1);
+                int stride = 1 << (logLength - l);
+                for (int start = 0; start < n; start += 2 * half) {
+                    for (int j = 0; j < half; j++) {
+                        long u = a[start + j];
+                        long v = multiply(a[start + j + half], twiddles[j * stride]);
+                        long sum = u + v;
+                        long difference = u - v;
+                        a[start + j] = sum >= q ? sum - q : sum;
+                        a[start + j + half] = difference < 0 ? difference + q : difference;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package sss;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Parallel form of the combination vote in findSecret.
+//
+// The C(n, k) subsets are split into ranges of lexicographic rank and scanned by a
+// work-stealing ForkJoinPool. Every leaf task counts into its own vote table, and
+// tables are merged when tasks join, so the merged counts and supports are the same as a
+// sequential scan produces; findSecret breaks ties by value, not by order.
+final class ParallelCombinationSearch {
+
+    // Leaves per worker; small enough for work stealing to even out slow ranges
+    private static final int TASKS_PER_WORKER = 16;
+
+    private ParallelCombinationSearch() {
+    }
+
+    // C(n, k) must fit in a long; findSecret searches larger spaces sequentially
+    static SecretSharing.VoteTable vote(int[] xs, BigInteger[] ys, int k, PrimeField.Points field, SmallShares small,
+                                        int parallelism, Log log) {
+        long total = Combinations.count(xs.length, k).longValueExact();
+        long grain = Math.max(1, total / ((long) parallelism * TASKS_PER_WORKER));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new RangeTask(xs, ys, k, field, small, 0, total, grain, log));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static final class RangeTask extends RecursiveTask<SecretSharing.VoteTable> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] xs;
+        private final BigInteger[] ys;
+        private final int k;
+        private final PrimeField.Points field;
+        private final SmallShares small;
+        private final long from;
+        private final long to;
+        private final long grain;
+        private final Log log;
+
+        RangeTask(int[] xs, BigInteger[] ys, int k, PrimeField.Points field, SmallShares small, long from, long to, long grain,
+                  Log log) {
+            this.xs = xs;
+            this.ys = ys;
+            this.k = k;
+            this.field = field;
+            this.small = small;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.log = log;
+        }
+
+        @Override
+        protected SecretSharing.VoteTable compute() {
+            if (to - from <= grain) {
+                return scan();
+            }
+            long middle = from + (to - from) / 2;
+            RangeTask left = new RangeTask(xs, ys, k, field, small, from, middle, grain, log);
+            RangeTask right = new RangeTask(xs, ys, k, field, small, middle, to, grain, log);
+            left.fork();
+            SecretSharing.VoteTable rightTable = right.compute();
+            SecretSharing.VoteTable leftTable = left.join();
+            leftTable.mergeFrom(rightTable);
+            return leftTable;
+        }
+
+        private SecretSharing.VoteTable scan() {
+            SecretSharing.VoteTable table = new SecretSharing.VoteTable(new HashMap<>());
+            Combinations combinations = new Combinations(xs.length, k);
+            int[] combination = combinations.indices();
+            if (from > 0) {
+                combinations.seek(from - 1);
+            }
+            for (long rank = from; rank < to && combinations.next(); rank++) {
+                table.tested++;
+                try {
+                    BigInteger secret = SecretSharing.interpolate(xs, ys, combination, field, small);
+                    table.record(secret, combination, xs.length);
+                } catch (Exception e) {
+                    if (log.verbose) {
+                        log.warn("Invalid combination " + SecretSharing.describeCombination(xs, combination) + ": " + e.getMessage());
+                    }
+                }
+            }
+            return table;
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package sss;
+
+import java.math.BigInteger;
+import java.util.Locale;
+
+// Arithmetic in GF(p) for Shamir sharing over a prime field.
+//
+// Elements are fixed-width arrays of 32-bit limbs (least significant first) in Montgomery
+// form, multiplied with the CIOS Montgomery algorithm, so interpolation does no BigInteger
+// division. All Lagrange denominators of a subset are inverted together with Montgomery's
+// trick: one modular inversion plus 3(k-1) multiplications.
+final class PrimeField {
+
+    // NIST P-256 field prime, 2^256 - 2^224 + 2^192 + 2^96 - 1
+    static final BigInteger P256 = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE.shiftLeft(224))
+            .add(BigInteger.ONE.shiftLeft(192)).add(BigInteger.ONE.shiftLeft(96)).subtract(BigInteger.ONE);
+    // NIST P-521 field prime, the Mersenne prime 2^521 - 1
+    static final BigInteger P521 = BigInteger.ONE.shiftLeft(521).subtract(BigInteger.ONE);
+    // Curve25519 field prime, 2^255 - 19
+    static final BigInteger P25519 = BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19));
+
+    private static final long MASK = 0xFFFFFFFFL;
+    // Small factors are multiplied together in a long while the product stays below this
+    private static final long SMALL_PRODUCT_LIMIT = 1L << 62;
+
+    final BigInteger modulus;
+    private final int limbs;
+    private final int[] p;
+    // -p^-1 mod 2^32
+    private final int pInverse;
+    // R mod p and R^2 mod p with R = 2^(32 * limbs)
+    private final int[] one;
+    private final BigInteger rSquared;
+    // Montgomery forms of 2^(64 m), undoing the scaling left by m calls to multiplySmall
+    private volatile int[][] smallCorrections = new int[1][];
+
+    PrimeField(BigInteger modulus) {
+        this.modulus = requirePrime(modulus);
+        this.limbs = (modulus.bitLength() + 31) / 32;
+        this.p = toLimbs(modulus);
+
+        // Newton iteration for p^-1 mod 2^32; each step doubles the number of correct bits
+        int inverse = p[0];
+        for (int i = 0; i < 5; i++) {
+            inverse *= 2 - p[0] * inverse;
+        }
+        this.pInverse = -inverse;
+
+        BigInteger r = BigInteger.ONE.shiftLeft(32 * limbs);
+        this.one = toLimbs(r.mod(modulus));
+        this.rSquared = r.multiply(r).mod(modulus);
+        this.smallCorrections[0] = one;
+    }
+
+    // The modulus if it is an odd prime; a composite one leaves differences without inverses
+    static BigInteger requirePrime(BigInteger modulus) {
+        if (modulus.compareTo(BigInteger.valueOf(3)) < 0 || !modulus.testBit(0)) {
+            throw new IllegalArgumentException("Field modulus must be an odd prime, got " + modulus);
+        }
+        if (!modulus.isProbablePrime(64)) {
+            throw new IllegalArgumentException("Field modulus is not prime: " + modulus);
+        }
+        return modulus;
+    }
+
+    // Accepts a decimal or 0x-prefixed hexadecimal prime, or one of p256, p521, 25519
+    static BigInteger parseModulus(String spec) {
+        String value = spec.trim().toLowerCase(Locale.ROOT);
+        switch (value) {
+            case "p256":
+            case "p-256":
+            case "secp256r1":
+                return P256;
+            case "p521":
+            case "p-521":
+            case "secp521r1":
+                return P521;
+            case "25519":
+            case "curve25519":
+                return P25519;
+            default:
+                BigInteger modulus;
+                try {
+                    modulus = value.startsWith("0x") ? new BigInteger(value.substring(2), 16) : new BigInteger(value);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid prime modulus '" + spec + "'");
+                }
+                return requirePrime(modulus);
+        }
+    }
+
+    // Shares converted to Montgomery form once, for interpolating many subsets of them
+    final class Points {
+        private final int[] xs;
+        private final int[][] x;
+        private final int[][] y;
+        private final BigInteger[] ys;
+
+        Points(int[] xs, BigInteger[] ys) {
+            this.xs = xs;
+            this.ys = ys;
+            this.x = new int[xs.length][];
+            this.y = new int[xs.length][];
+            for (int i = 0; i < xs.length; i++) {
+                x[i] = toMontgomery(BigInteger.valueOf(xs[i]));
+                y[i] = toMontgomery(ys[i]);
+            }
+        }
+
+        // f(0) through the shares at the given positions, by the subproduct tree from
+        // FastInterpolation.THRESHOLD shares on
+        BigInteger interpolateAtZero(int[] indices) {
+            if (indices.length >= FastInterpolation.THRESHOLD) {
+                return FastInterpolation.interpolateAtZero(xs, ys, indices, modulus);
+            }
+            return lagrangeAtZero(indices);
+        }
+
+        // f(0) = sum y_i * prod_{j != i} x_j / (x_j - x_i), in O(k^2) field operations
+        BigInteger lagrangeAtZero(int[] indices) {
+            int k = indices.length;
+            long[] scratch = new long[limbs + 3];
+            int[][] numerators = new int[k][];
+            int[][] denominators = new int[k][];
+
+            // prod_{j != i} x_j from prefix and suffix products
+            int[] prefix = one.clone();
+            for (int i = 0; i < k; i++) {
+                numerators[i] = prefix.clone();
+                multiply(prefix, x[indices[i]], prefix, scratch);
+            }
+            int[] suffix = one.clone();
+            for (int i = k - 1; i >= 0; i--) {
+                multiply(numerators[i], suffix, numerators[i], scratch);
+                multiply(suffix, x[indices[i]], suffix, scratch);
+            }
+
+            // prod_{j != i} (x_j - x_i); the differences are small integers, so they are
+            // multiplied together in a long and folded in with the cheaper multiplySmall
+            for (int i = 0; i < k; i++) {
+                int[] denominator = one.clone();
+                int xi = xs[indices[i]];
+                long chunk = 1;
+                boolean negative = false;
+                int folds = 0;
+                for (int j = 0; j < k; j++) {
+                    if (i == j) {
+                        continue;
+                    }
+                    long difference = (long) xs[indices[j]] - xi;
+                    if (difference < 0) {
+                        negative = !negative;
+                        difference = -difference;
+                    }
+                    if (difference == 0 || difference >= SMALL_PRODUCT_LIMIT / chunk) {
+                        multiplySmall(denominator, chunk, denominator, scratch);
+                        folds++;
+                        chunk = 1;
+                    }
+                    chunk *= difference;
+                }
+                multiplySmall(denominator, chunk, denominator, scratch);
+                folds++;
+                multiply(denominator, smallCorrection(folds), denominator, scratch);
+                if (negative) {
+                    subtract(new int[limbs], denominator, denominator);
+                }
+                if (isZero(denominator)) {
+                    throw new ArithmeticException("Duplicate x-values modulo p: " + xs[indices[i]]);
+                }
+                denominators[i] = denominator;
+            }
+            batchInvert(denominators, scratch);
+
+            int[] secret = new int[limbs];
+            int[] term = new int[limbs];
+            for (int i = 0; i < k; i++) {
+                multiply(y[indices[i]], numerators[i], term, scratch);
+                multiply(term, denominators[i], term, scratch);
+                add(secret, term, secret);
+            }
+            return fromMontgomery(secret);
+        }
+    }
+
+    // Replaces every (non-zero) element with its inverse using a single modular inversion
+    void batchInvert(int[][] values, long[] scratch) {
+        int count = values.length;
+        if (count == 0) {
+            return;
+        }
+        int[][] prefix = new int[count][];
+        prefix[0] = values[0].clone();
+        for (int i = 1; i < count; i++) {
+            prefix[i] = new int[limbs];
+            multiply(prefix[i - 1], values[i], prefix[i], scratch);
+        }
+        int[] inverse = invert(prefix[count - 1]);
+        for (int i = count - 1; i > 0; i--) {
+            int[] original = values[i];
+            int[] inverted = new int[limbs];
+            multiply(inverse, prefix[i - 1], inverted, scratch);
+            multiply(inverse, original, inverse, scratch);
+            values[i] = inverted;
+        }
+        values[0] = inverse;
+    }
+
+    // Montgomery inverse: (aR)^-1 * R^2 = a^-1 R
+    int[] invert(int[] a) {
+        BigInteger value = fromLimbs(a);
+        return toLimbs(value.modInverse(modulus).multiply(rSquared).mod(modulus));
+    }
+
+    int[] toMontgomery(BigInteger value) {
+        return toLimbs(value.mod(modulus).shiftLeft(32 * limbs).mod(modulus));
+    }
+
+    BigInteger fromMontgomery(int[] a) {
+        int[] unit = new int[limbs];
+        unit[0] = 1;
+        int[] result = new int[limbs];
+        multiply(a, unit, result, new long[limbs + 2]);
+        return fromLimbs(result);
+    }
+
+    // out = a * b * R^-1 mod p (CIOS); out may alias a or b, scratch needs limbs + 2 entries
+    void multiply(int[] a, int[] b, int[] out, long[] scratch) {
+        long[] t = scratch;
+        java.util.Arrays.fill(t, 0, limbs + 2, 0);
+        for (int i = 0; i < limbs; i++) {
+            long bi = b[i] & MASK;
+            long carry = 0;
+            for (int j = 0; j < limbs; j++) {
+                long sum = t[j] + (a[j] & MASK) * bi + carry;
+                // sum can exceed 2^63, so split it with unsigned shifts only
+                t[j] = sum & MASK;
+                carry = sum >>> 32;
+            }
+            long sum = t[limbs] + carry;
+            t[limbs] = sum & MASK;
+            t[limbs + 1] = sum >>> 32;
+
+            long m = (t[0] * (pInverse & MASK)) & MASK;
+            sum = t[0] + m * (p[0] & MASK);
+            carry = sum >>> 32;
+            for (int j = 1; j < limbs; j++) {
+                sum = t[j] + m * (p[j] & MASK) + carry;
+                t[j - 1] = sum & MASK;
+                carry = sum >>> 32;
+            }
+            sum = t[limbs] + carry;
+            t[limbs - 1] = sum & MASK;
+            t[limbs] = t[limbs + 1] + (sum >>> 32);
+        }
+        boolean reduce = t[limbs] != 0 || compare(t, p) >= 0;
+        long borrow = 0;
+        for (int i = 0; i < limbs; i++) {
+            long value = t[i] - (reduce ? p[i] & MASK : 0) - borrow;
+            out[i] = (int) value;
+            borrow = (value >> 32) & 1;
+        }
+    }
+
+    // out = a * c * 2^-64 mod p for a plain 0 <= c < 2^62: a product with a two-limb
+    // factor followed by two Montgomery reduction rounds, O(limbs) instead of O(limbs^2)
+    void multiplySmall(int[] a, long c, int[] out, long[] scratch) {
+        long[] t = scratch.length >= limbs + 3 ? scratch : new long[limbs + 3];
+        long c0 = c & MASK;
+        long c1 = c >>> 32;
+        long carry = 0;
+        for (int j = 0; j < limbs; j++) {
+            long v = (a[j] & MASK) * c0 + carry;
+            t[j] = v & MASK;
+            carry = v >>> 32;
+        }
+        t[limbs] = carry;
+        carry = 0;
+        for (int j = 0; j < limbs; j++) {
+            long v = t[j + 1] + (a[j] & MASK) * c1 + carry;
+            t[j + 1] = v & MASK;
+            carry = v >>> 32;
+        }
+        t[limbs + 1] = carry;
+        t[limbs + 2] = 0;
+
+        for (int round = 0; round < 2; round++) {
+            long m = (t[0] * (pInverse & MASK)) & MASK;
+            long v = t[0] + m * (p[0] & MASK);
+            carry = v >>> 32;
+            for (int j = 1; j <= limbs + 2; j++) {
+                v = t[j] + (j < limbs ? m * (p[j] & MASK) : 0) + carry;
+                t[j - 1] = v & MASK;
+                carry = v >>> 32;
+            }
+            t[limbs + 2] = carry;
+        }
+        boolean reduce = t[limbs] != 0 || compare(t, p) >= 0;
+        long borrow = 0;
+        for (int i = 0; i < limbs; i++) {
+            long value = t[i] - (reduce ? p[i] & MASK : 0) - borrow;
+            out[i] = (int) value;
+            borrow = (value >> 32) & 1;
+        }
+    }
+
+    private int[] smallCorrection(int folds) {
+        int[][] table = smallCorrections;
+        if (folds >= table.length) {
+            synchronized (this) {
+                table = smallCorrections;
+                if (folds >= table.length) {
+                    int[][] grown = java.util.Arrays.copyOf(table, Math.max(folds + 1, table.length * 2));
+                    for (int m = table.length; m < grown.length; m++) {
+                        grown[m] = toMontgomery(BigInteger.ONE.shiftLeft(64 * m));
+                    }
+                    smallCorrections = grown;
+                    table = grown;
+                }
+            }
+        }
+        return table[folds];
+    }
+
+    // out = a + b mod p
+    void add(int[] a, int[] b, int[] out) {
+        long carry = 0;
+        for (int i = 0; i < limbs; i++) {
+            long sum = (a[i] & MASK) + (b[i] & MASK) + carry;
+            out[i] = (int) sum;
+            carry = sum >>> 32;
+        }
+        if (carry != 0 || compare(out, p) >= 0) {
+            subtractModulus(out);
+        }
+    }
+
+    // out = a - b mod p
+    void subtract(int[] a, int[] b, int[] out) {
+        long borrow = 0;
+        for (int i = 0; i < limbs; i++) {
+            long value = (a[i] & MASK) - (b[i] & MASK) - borrow;
+            out[i] = (int) value;
+            borrow = (value >> 32) & 1;
+        }
+        if (borrow != 0) {
+            long carry = 0;
+            for (int i = 0; i < limbs; i++) {
+                long sum = (out[i] & MASK) + (p[i] & MASK) + carry;
+                out[i] = (int) sum;
+                carry = sum >>> 32;
+            }
+        }
+    }
+
+    private void subtractModulus(int[] a) {
+        long borrow = 0;
+        for (int i = 0; i < limbs; i++) {
+            long value = (a[i] & MASK) - (p[i] & MASK) - borrow;
+            a[i] = (int) value;
+            borrow = (value >> 32) & 1;
+        }
+    }
+
+    private int compare(long[] a, int[] b) {
+        for (int i = limbs - 1; i >= 0; i--) {
+            long bi = b[i] & MASK;
+            if (a[i] != bi) {
+                return a[i] < bi ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    private int compare(int[] a, int[] b) {
+        for (int i = limbs - 1; i >= 0; i--) {
+            if (a[i] != b[i]) {
+                return Integer.compareUnsigned(a[i], b[i]);
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isZero(int[] a) {
+        for (int limb : a) {
+            if (limb != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] toLimbs(BigInteger value) {
+        int[] result = new int[limbs];
+        for (int i = 0; i < limbs; i++) {
+            result[i] = value.shiftRight(32 * i).intValue();
+        }
+        return result;
+    }
+
+    private BigInteger fromLimbs(int[] a) {
+        byte[] bytes = new byte[4 * limbs + 1];
+        for (int i = 0; i < limbs; i++) {
+            int limb = a[i];
+            int offset = bytes.length - 4 * i;
+            bytes[offset - 1] = (byte) limb;
+            bytes[offset - 2] = (byte) (limb >>> 8);
+            bytes[offset - 3] = (byte) (limb >>> 16);
+            bytes[offset - 4] = (byte) (limb >>> 24);
+        }
+        return new BigInteger(bytes);
+    }
+}
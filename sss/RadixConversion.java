@@ -0,0 +1,201 @@
+package sss;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+// Conversions between BigInteger and digit strings in bases 2..36 for values with
+// hundreds of thousands of digits.
+//
+// new BigInteger(String, base) multiplies the accumulated value by one digit group at a
+// time, which is quadratic in the length. Here long strings are split in two at a digit
+// count of leaf * 2^i, both halves are converted recursively and recombined as
+// high * base^(leaf * 2^i) + low, so the cost is that of a few big multiplications
+// (Karatsuba / Toom-Cook in BigInteger) per level. Formatting runs the same split in
+// reverse with divideAndRemainder, writing straight into one char buffer. The powers
+// base^(leaf * 2^i) are computed once per base and shared. Power-of-two bases need no
+// arithmetic at all: digits map to bit fields and are packed in linear time.
+final class RadixConversion {
+
+    // Pieces of at most this many bits are left to BigInteger's own conversions
+    private static final int LEAF_BITS = 2048;
+
+    // powers[base][i] = base^(leafDigits(base) * 2^i), grown on demand
+    private static final BigInteger[][] POWERS = new BigInteger[Character.MAX_RADIX + 1][];
+
+    private RadixConversion() {
+    }
+
+    static BigInteger parse(String digits, int base) {
+        checkBase(base);
+        int from = 0;
+        boolean negative = false;
+        if (!digits.isEmpty() && (digits.charAt(0) == '-' || digits.charAt(0) == '+')) {
+            negative = digits.charAt(0) == '-';
+            from = 1;
+        }
+        if (from == digits.length()) {
+            throw new NumberFormatException("Zero length BigInteger");
+        }
+        for (int i = from; i < digits.length(); i++) {
+            if (Character.digit(digits.charAt(i), base) < 0) {
+                throw new NumberFormatException("Illegal digit '" + digits.charAt(i) + "' at index " + i + " for base " + base);
+            }
+        }
+
+        BigInteger value;
+        if (Integer.bitCount(base) == 1) {
+            value = parsePowerOfTwo(digits, from, base);
+        } else if (digits.length() - from <= leafDigits(base)) {
+            return new BigInteger(digits, base);
+        } else {
+            int leaf = leafDigits(base);
+            int levels = 0;
+            while ((long) leaf << (levels + 1) < digits.length() - from) {
+                levels++;
+            }
+            value = parse(digits, from, digits.length(), base, leaf, powers(base, levels));
+        }
+        return negative ? value.negate() : value;
+    }
+
+    static String toString(BigInteger value, int base) {
+        checkBase(base);
+        if (Integer.bitCount(base) == 1) {
+            return formatPowerOfTwo(value, base);
+        }
+        if (value.bitLength() <= LEAF_BITS) {
+            return value.toString(base);
+        }
+        BigInteger magnitude = value.abs();
+        int leaf = leafDigits(base);
+        // Smallest level whose next power exceeds the value
+        int level = 0;
+        BigInteger[] powers = powers(base, 1);
+        while (powers[level + 1].compareTo(magnitude) <= 0) {
+            level++;
+            powers = powers(base, level + 1);
+        }
+
+        char[] out = new char[(leaf << (level + 1)) + 1];
+        int start = format(magnitude, level, false, base, leaf, powers, out, out.length);
+        if (value.signum() < 0) {
+            out[--start] = '-';
+        }
+        return new String(out, start, out.length - start);
+    }
+
+    // digits[from, to) as a value, splitting off the low leaf * 2^i digits
+    private static BigInteger parse(String digits, int from, int to, int base, int leaf, BigInteger[] powers) {
+        int length = to - from;
+        if (length <= leaf) {
+            return new BigInteger(digits.substring(from, to), base);
+        }
+        int level = 0;
+        while ((long) leaf << (level + 1) < length) {
+            level++;
+        }
+        int split = to - (leaf << level);
+        BigInteger high = parse(digits, from, split, base, leaf, powers);
+        BigInteger low = parse(digits, split, to, base, leaf, powers);
+        return high.multiply(powers[level]).add(low);
+    }
+
+    // Writes value (< powers[level + 1]) so that it ends at out[end]; when padded it takes
+    // exactly leaf * 2^(level + 1) digits. Returns the index of its first digit.
+    private static int format(BigInteger value, int level, boolean pad, int base, int leaf, BigInteger[] powers, char[] out, int end) {
+        if (level < 0) {
+            String digits = value.toString(base);
+            int start = end - digits.length();
+            digits.getChars(0, digits.length(), out, start);
+            if (pad) {
+                while (start > end - leaf) {
+                    out[--start] = '0';
+                }
+            }
+            return start;
+        }
+        if (!pad && value.compareTo(powers[level]) < 0) {
+            return format(value, level - 1, false, base, leaf, powers, out, end);
+        }
+        BigInteger[] quotientAndRemainder = value.divideAndRemainder(powers[level]);
+        int middle = format(quotientAndRemainder[1], level - 1, true, base, leaf, powers, out, end);
+        return format(quotientAndRemainder[0], level - 1, pad, base, leaf, powers, out, middle);
+    }
+
+    private static BigInteger parsePowerOfTwo(String digits, int from, int base) {
+        int bitsPerDigit = Integer.numberOfTrailingZeros(base);
+        long bits = (long) (digits.length() - from) * bitsPerDigit;
+        byte[] magnitude = new byte[(int) ((bits + 7) / 8)];
+        int position = magnitude.length - 1;
+        int accumulator = 0;
+        int accumulated = 0;
+        for (int i = digits.length() - 1; i >= from; i--) {
+            accumulator |= Character.digit(digits.charAt(i), base) << accumulated;
+            accumulated += bitsPerDigit;
+            if (accumulated >= 8) {
+                magnitude[position--] = (byte) accumulator;
+                accumulator >>>= 8;
+                accumulated -= 8;
+            }
+        }
+        if (accumulated > 0) {
+            magnitude[position] = (byte) accumulator;
+        }
+        return new BigInteger(1, magnitude);
+    }
+
+    private static String formatPowerOfTwo(BigInteger value, int base) {
+        if (value.signum() == 0) {
+            return "0";
+        }
+        int bitsPerDigit = Integer.numberOfTrailingZeros(base);
+        BigInteger magnitude = value.abs();
+        byte[] bytes = magnitude.toByteArray();
+        int digitCount = (magnitude.bitLength() + bitsPerDigit - 1) / bitsPerDigit;
+        int sign = value.signum() < 0 ? 1 : 0;
+        char[] out = new char[digitCount + sign];
+        int position = bytes.length - 1;
+        int accumulator = 0;
+        int accumulated = 0;
+        for (int d = out.length - 1; d >= sign; d--) {
+            if (accumulated < bitsPerDigit && position >= 0) {
+                accumulator |= (bytes[position--] & 0xff) << accumulated;
+                accumulated += 8;
+            }
+            out[d] = Character.forDigit(accumulator & (base - 1), base);
+            accumulator >>>= bitsPerDigit;
+            accumulated -= bitsPerDigit;
+        }
+        if (sign == 1) {
+            out[0] = '-';
+        }
+        return new String(out);
+    }
+
+    // Digits of the given base that fit in LEAF_BITS
+    private static int leafDigits(int base) {
+        return (int) (LEAF_BITS / (Math.log(base) / Math.log(2)));
+    }
+
+    private static synchronized BigInteger[] powers(int base, int level) {
+        BigInteger[] powers = POWERS[base];
+        if (powers == null) {
+            powers = new BigInteger[] {BigInteger.valueOf(base).pow(leafDigits(base))};
+        }
+        if (powers.length <= level) {
+            int known = powers.length;
+            powers = Arrays.copyOf(powers, level + 1);
+            for (int i = known; i <= level; i++) {
+                powers[i] = powers[i - 1].multiply(powers[i - 1]);
+            }
+        }
+        POWERS[base] = powers;
+        return powers;
+    }
+
+    private static void checkBase(int base) {
+        if (base < Character.MIN_RADIX || base > Character.MAX_RADIX) {
+            throw new NumberFormatException("Base " + base + " is not between 2 and 36");
+        }
+    }
+}
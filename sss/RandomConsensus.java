@@ -0,0 +1,159 @@
+package sss;
+
+import java.math.BigInteger;
+import java.util.*;
+
+// Randomized consensus (RANSAC) decoding of Shamir shares.
+//
+// One k-subset of good shares is enough to recover the whole polynomial, so instead of
+// voting over all C(n, k) subsets this draws random k-subsets, builds the Newton form of
+// the polynomial through each (O(k^2)) and counts the other shares that lie on it (O(n k)).
+// The largest consensus wins; its shares are the valid ones and all others are wrong.
+//
+// Sampling stops as soon as one of these holds:
+//   - the consensus has m shares with 2m > n + k - 1: two distinct polynomials of degree
+//     < k agree on at most k - 1 shares, so no other polynomial can reach m and the answer
+//     is certain (this covers every case Berlekamp-Welch can correct);
+//   - enough samples were drawn that a subset made only of the m agreeing shares would have
+//     been seen with the requested confidence, log(1 - c) / log(1 - C(m, k) / C(n, k));
+//   - enough samples were drawn that every one of the C(n, k) subsets would have been seen
+//     with that confidence, C(n, k) ln(C(n, k) / (1 - c)), which bounds small inputs;
+//   - MAX_SAMPLES samples were drawn; the best consensus so far is reported with a warning.
+// Subsets are drawn from the Random that is passed in, so a seeded one repeats the run.
+final class RandomConsensus {
+
+    static final long MAX_SAMPLES = 1_000_000;
+
+    private RandomConsensus() {
+    }
+
+    static SecretSharing.ReconstructionResult decode(Map<Integer, BigInteger> shares, int k, BigInteger modulus,
+                                                     double confidence, Random random, Log log) {
+        int n = shares.size();
+        if (n < k) {
+            throw new IllegalArgumentException("Not enough shares to decode. Need " + k + " but only have " + n);
+        }
+        int[] xs = new int[n];
+        BigInteger[] ys = new BigInteger[n];
+        int index = 0;
+        for (Map.Entry<Integer, BigInteger> entry : shares.entrySet()) {
+            xs[index] = entry.getKey();
+            ys[index] = entry.getValue();
+            index++;
+        }
+        PrimeField field = modulus == null ? null : new PrimeField(modulus);
+
+        // The first k entries of order are the current sample (partial Fisher-Yates shuffle)
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        BitSet agreeing = new BitSet(n);
+        BitSet best = null;
+        BigInteger bestSecret = null;
+        int bestCount = 0;
+        long limit = Math.min(MAX_SAMPLES, coverageSamples(Combinations.count(n, k), confidence));
+        long needed = limit;
+        long samples = 0;
+        long failed = 0;
+        boolean certain = false;
+        while (samples < needed) {
+            samples++;
+            for (int i = 0; i < k; i++) {
+                int j = i + random.nextInt(n - i);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+
+            NewtonInterpolation polynomial = NewtonInterpolation.create(field);
+            BigInteger secret;
+            try {
+                for (int i = 0; i < k; i++) {
+                    polynomial.add(xs[order[i]], ys[order[i]]);
+                }
+                secret = polynomial.valueAtZero(k);
+            } catch (RuntimeException e) {
+                secret = null;
+            }
+            if (secret == null) {
+                // Over the integers a fractional secret means the sample holds a wrong share
+                failed++;
+                continue;
+            }
+
+            agreeing.clear();
+            int count = k;
+            for (int i = 0; i < k; i++) {
+                agreeing.set(order[i]);
+            }
+            for (int i = k; i < n && count + (n - i) > bestCount; i++) {
+                int share = order[i];
+                if (ys[share] != null && polynomial.matches(xs[share], ys[share], k)) {
+                    agreeing.set(share);
+                    count++;
+                }
+            }
+            if (count > bestCount) {
+                best = (BitSet) agreeing.clone();
+                bestCount = count;
+                bestSecret = secret;
+                if (2L * count > (long) n + k - 1) {
+                    certain = true;
+                    break;
+                }
+                needed = Math.min(limit, consensusSamples(n, k, count, confidence));
+            }
+        }
+        Metrics.COMBINATIONS_TESTED.add(samples);
+        Metrics.COMBINATIONS_FAILED.add(failed);
+
+        if (best == null) {
+            throw new RuntimeException("No valid combinations found. All " + samples + " sampled subsets failed interpolation.");
+        }
+        if (log.verbose) {
+            log.info("Consensus of " + bestCount + " out of " + n + " shares after " + samples + " samples"
+                    + (certain ? " (no other polynomial can match as many shares)" : ""));
+            if (bestCount == k && n > k) {
+                log.warn("No share outside the sampled " + k + " agrees with them, the secret is not confirmed by any other share");
+            } else if (!certain && samples >= MAX_SAMPLES && needed > MAX_SAMPLES) {
+                log.warn("Stopped after " + MAX_SAMPLES + " samples without reaching confidence " + confidence);
+            }
+        }
+
+        SecretSharing.ReconstructionResult result = new SecretSharing.ReconstructionResult();
+        result.secret = bestSecret;
+        for (int i = 0; i < n; i++) {
+            if (best.get(i)) {
+                result.validShares.add(xs[i]);
+            } else {
+                result.wrongShares.add(xs[i]);
+            }
+        }
+        return result;
+    }
+
+    // Samples that draw a subset of k of the m agreeing shares at least once with the given
+    // confidence, m of n shares being drawn C(m, k) / C(n, k) of the time
+    static long consensusSamples(int n, int k, int agreeing, double confidence) {
+        double clean = 1;
+        for (int i = 0; i < k; i++) {
+            clean *= (double) (agreeing - i) / (n - i);
+        }
+        if (clean >= 1) {
+            return 1;
+        }
+        return ceiling(Math.log1p(-confidence) / Math.log1p(-clean));
+    }
+
+    // Samples that draw every one of the subsets at least once with the given confidence,
+    // by the union bound over subsets each missed with probability (1 - 1/C)^s <= e^(-s/C)
+    static long coverageSamples(BigInteger subsets, double confidence) {
+        double count = subsets.doubleValue();
+        return ceiling(count * Math.log(count / (1 - confidence)));
+    }
+
+    private static long ceiling(double samples) {
+        return samples >= Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(1, (long) Math.ceil(samples));
+    }
+}
@@ -0,0 +1,92 @@
+package sss;
+
+import java.math.BigInteger;
+
+// Immutable exact fraction, always kept in lowest terms with a positive denominator
+final class Rational {
+
+    static final Rational ZERO = new Rational(BigInteger.ZERO, BigInteger.ONE);
+    static final Rational ONE = new Rational(BigInteger.ONE, BigInteger.ONE);
+
+    final BigInteger numerator;
+    final BigInteger denominator;
+
+    private Rational(BigInteger numerator, BigInteger denominator) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+    }
+
+    static Rational of(BigInteger value) {
+        return new Rational(value, BigInteger.ONE);
+    }
+
+    static Rational of(BigInteger numerator, BigInteger denominator) {
+        if (denominator.signum() == 0) {
+            throw new ArithmeticException("Zero denominator");
+        }
+        if (denominator.signum() < 0) {
+            numerator = numerator.negate();
+            denominator = denominator.negate();
+        }
+        BigInteger g = numerator.gcd(denominator);
+        if (!g.equals(BigInteger.ONE)) {
+            numerator = numerator.divide(g);
+            denominator = denominator.divide(g);
+        }
+        return new Rational(numerator, denominator);
+    }
+
+    boolean isZero() {
+        return numerator.signum() == 0;
+    }
+
+    boolean isInteger() {
+        return denominator.equals(BigInteger.ONE);
+    }
+
+    Rational add(Rational other) {
+        if (isInteger() && other.isInteger()) {
+            return new Rational(numerator.add(other.numerator), BigInteger.ONE);
+        }
+        return of(numerator.multiply(other.denominator).add(other.numerator.multiply(denominator)),
+                denominator.multiply(other.denominator));
+    }
+
+    Rational subtract(Rational other) {
+        return add(other.negate());
+    }
+
+    Rational multiply(Rational other) {
+        if (isInteger() && other.isInteger()) {
+            return new Rational(numerator.multiply(other.numerator), BigInteger.ONE);
+        }
+        return of(numerator.multiply(other.numerator), denominator.multiply(other.denominator));
+    }
+
+    Rational divide(Rational other) {
+        return of(numerator.multiply(other.denominator), denominator.multiply(other.numerator));
+    }
+
+    Rational negate() {
+        return new Rational(numerator.negate(), denominator);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Rational)) {
+            return false;
+        }
+        Rational other = (Rational) o;
+        return numerator.equals(other.numerator) && denominator.equals(other.denominator);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * numerator.hashCode() + denominator.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return isInteger() ? numerator.toString() : numerator + "/" + denominator;
+    }
+}
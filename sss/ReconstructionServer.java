@@ -0,0 +1,306 @@
+package sss;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.*;
+
+// Resident reconstruction service, so parsing and interpolation stay JIT-compiled
+// between requests instead of paying JVM startup for every share set.
+//
+// HTTP (loopback only): POST a share-set document to /reconstruct; the reply is
+//     {"secret":"...","validShares":[..],"wrongShares":[..]}   or 400 {"error":"..."}
+// Bodies over MAX_REQUEST_BYTES are refused with 413 before they are read.
+// GET /metrics returns the pipeline metrics in Prometheus text format, or as JSON with
+// ?format=json.
+// Unix domain socket: one document per line, one reply line per document. Clients may
+// pipeline: every line is handed to the worker pool as soon as it is read, and replies
+// are written back in request order, with at most PIPELINE_DEPTH requests outstanding
+// per connection.
+final class ReconstructionServer {
+
+    // Requests read ahead of the reply writer on one socket connection
+    private static final int PIPELINE_DEPTH = 64;
+
+    // Largest HTTP request body; every request is held in memory while it is reconstructed
+    static final int MAX_REQUEST_BYTES = 64 << 20;
+
+    private final SecretSharing.Options options;
+    private final ExecutorService workers;
+    private final ExecutorService connections = Executors.newCachedThreadPool(daemonThreads());
+    private HttpServer http;
+    private ServerSocketChannel unix;
+    private Path socketPath;
+
+    private ReconstructionServer(SecretSharing.Options options) {
+        // The pipeline's progress output would only slow requests down
+        this.options = options.withLog(Log.QUIET);
+        this.workers = Executors.newFixedThreadPool(options.workers, daemonThreads());
+    }
+
+    // Serves until the process is stopped
+    static void run(SecretSharing.Options options) throws IOException, InterruptedException {
+        ReconstructionServer server = start(options);
+        if (server.http != null) {
+            System.out.println("Listening on http://" + server.http.getAddress().getHostString() + ":"
+                    + server.httpPort() + "/reconstruct");
+        }
+        if (server.unix != null) {
+            System.out.println("Listening on unix:" + server.socketPath);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        new CountDownLatch(1).await();
+    }
+
+    static ReconstructionServer start(SecretSharing.Options options) throws IOException {
+        ReconstructionServer server = new ReconstructionServer(options);
+        try {
+            if (options.httpPort >= 0) {
+                server.startHttp(options.httpPort);
+            }
+            if (options.unixSocket != null) {
+                server.startUnix(Paths.get(options.unixSocket));
+            }
+        } catch (IOException | RuntimeException e) {
+            server.stop();
+            throw e;
+        }
+        return server;
+    }
+
+    int httpPort() {
+        return http.getAddress().getPort();
+    }
+
+    void stop() {
+        if (http != null) {
+            http.stop(0);
+        }
+        if (unix != null) {
+            try {
+                unix.close();
+                Files.deleteIfExists(socketPath);
+            } catch (IOException ignored) {
+                // shutting down anyway
+            }
+        }
+        connections.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void startHttp(int port) throws IOException {
+        // The JDK server writes headers and body separately; without TCP_NODELAY every
+        // small reply waits out the client's delayed ACK (about 40 ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/reconstruct", this::handle);
+        http.createContext("/metrics", ReconstructionServer::handleMetrics);
+        http.setExecutor(workers);
+        http.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            // The declared length is checked up front; a chunked body is read one byte past
+            // the limit so that an oversized one is still noticed without reading all of it
+            String declared = exchange.getRequestHeaders().getFirst("Content-Length");
+            byte[] body = null;
+            if (declared == null || !isOverLimit(declared)) {
+                body = exchange.getRequestBody().readNBytes(MAX_REQUEST_BYTES + 1);
+            }
+            Reply reply;
+            int status;
+            if (body == null || body.length > MAX_REQUEST_BYTES) {
+                reply = new Reply(false, "{\"error\":\"Request body larger than " + MAX_REQUEST_BYTES + " bytes\"}");
+                status = 413;
+            } else {
+                reply = reconstruct(new String(body, StandardCharsets.UTF_8));
+                status = reply.ok ? 200 : 400;
+            }
+            byte[] response = reply.json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, response.length);
+            exchange.getResponseBody().write(response);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static boolean isOverLimit(String contentLength) {
+        try {
+            return Long.parseLong(contentLength.trim()) > MAX_REQUEST_BYTES;
+        } catch (NumberFormatException e) {
+            return false; // the server itself rejects a malformed length
+        }
+    }
+
+    private static void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String query = exchange.getRequestURI().getQuery();
+            boolean json = query != null && query.equals("format=json");
+            byte[] response = (json ? Metrics.toJson() : Metrics.toPrometheus()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", json ? "application/json" : "text/plain; version=0.0.4");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void startUnix(Path path) throws IOException {
+        // A socket file left behind by a server that was killed would make bind fail
+        Files.deleteIfExists(path);
+        unix = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        unix.bind(UnixDomainSocketAddress.of(path));
+        socketPath = path;
+        connections.execute(() -> {
+            while (unix.isOpen()) {
+                try {
+                    SocketChannel channel = unix.accept();
+                    connections.execute(() -> serve(channel));
+                } catch (IOException e) {
+                    return; // closed by stop()
+                }
+            }
+        });
+    }
+
+    // Reads requests on this thread and writes replies in order on another
+    private void serve(SocketChannel channel) {
+        BlockingQueue<Future<Reply>> replies = new ArrayBlockingQueue<>(PIPELINE_DEPTH);
+        Future<Reply> endOfStream = CompletableFuture.completedFuture(null);
+        Future<?> writer = connections.submit(() -> {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(outputStream(channel), StandardCharsets.UTF_8))) {
+                Future<Reply> next;
+                while ((next = replies.take()) != endOfStream) {
+                    out.write(next.get().json);
+                    out.write('\n');
+                    if (replies.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            }
+            return null;
+        });
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(inputStream(channel), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isBlank()) {
+                    String document = line;
+                    enqueue(replies, workers.submit(() -> reconstruct(document)), writer);
+                }
+            }
+            enqueue(replies, endOfStream, writer);
+            writer.get();
+        } catch (IOException | ExecutionException | InterruptedException e) {
+            writer.cancel(true);
+            replies.forEach(reply -> reply.cancel(true));
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing left to report to
+            }
+        }
+    }
+
+    // Hands a request to the reply writer. A writer that has stopped (the client went away
+    // or a write failed) never makes room in the queue again, so the wait gives up then.
+    private static void enqueue(BlockingQueue<Future<Reply>> replies, Future<Reply> reply, Future<?> writer)
+            throws IOException, InterruptedException {
+        while (writer.isDone() || !replies.offer(reply, 100, TimeUnit.MILLISECONDS)) {
+            if (writer.isDone()) {
+                reply.cancel(true);
+                throw new IOException("Reply writer stopped");
+            }
+        }
+    }
+
+    private Reply reconstruct(String document) {
+        try {
+            SecretSharing.ReconstructionResult result = SecretSharing.reconstruct(document, options);
+            return new Reply(true, "{\"secret\":\"" + result.secret + "\",\"validShares\":" + result.validShares
+                    + ",\"wrongShares\":" + result.wrongShares + "}");
+        } catch (Exception | StackOverflowError e) {
+            String message = e.getMessage() != null ? e.getMessage() : e.toString();
+            return new Reply(false, "{\"error\":" + BatchRunner.quote(message) + "}");
+        }
+    }
+
+    // Channels.newInputStream/newOutputStream hold the channel's blocking lock for the whole
+    // call, so a reader waiting for the next request would stall the reply writer; these
+    // streams go to the channel directly, which allows one read and one write at a time.
+    static InputStream inputStream(SocketChannel channel) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                return length == 0 ? 0 : channel.read(ByteBuffer.wrap(buffer, offset, length));
+            }
+        };
+    }
+
+    static OutputStream outputStream(SocketChannel channel) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                ByteBuffer bytes = ByteBuffer.wrap(buffer, offset, length);
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            }
+        };
+    }
+
+    static ThreadFactory daemonThreads() {
+        ThreadFactory defaults = Executors.defaultThreadFactory();
+        return runnable -> {
+            Thread thread = defaults.newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Reply {
+        final boolean ok;
+        final String json;
+
+        Reply(boolean ok, String json) {
+            this.ok = ok;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package sss;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Persistent, content-addressed cache of findSecret results (--cache=DIR).
+//
+// The key is the SHA-256 of the normalized share set: k, the prime, the decoder (for ransac
+// with its confidence and seed, so a result sampled under other settings is not reused) and
+// the decoded (x, y) pairs sorted by x, so a document reformatted, reordered or written in
+// other bases hits the same entry. Each entry is a file objects/<first 128 bits of the key in hex>
+// holding the full key, the secret, the valid and wrong shares and, with --cache-shares,
+// the decoded shares; a hit with stored shares is only used if they equal the shares at hand.
+//
+// The index is a memory-mapped open-addressing table (linear probing, backward-shift
+// deletion) of SLOTS slots of 32 bytes:
+//     key 16 bytes | entry size int | reserved int | last used (epoch ms) long
+// after a 32-byte header: magic, slot count, entry count, total entry bytes.
+// Lookups read the mapping without locking; a torn or stale slot at worst turns into a
+// miss, because the entry file is only trusted when the full key inside it matches. Every
+// write to the mapping, including the last-used time of a hit, happens under the index file
+// lock (shared with other processes using the directory, e.g. parallel batch runs), after
+// finding the slot again, since deletions in another process move entries between slots. Entry files are written to a temporary file and moved into
+// place atomically, so readers never see a partial entry. When the entries outgrow the size
+// limit the least recently used are deleted until they are back under 90% of it, and when
+// they fill three quarters of the slots, until they fill half of them.
+final class ResultCache {
+
+    static final int SLOTS = 1 << 16;
+    private static final int MAGIC = 0x53534331; // "SSC1"
+    private static final int HEADER = 32;
+    private static final int SLOT = 32;
+    private static final int HEADER_ENTRIES = 8;
+    private static final int HEADER_BYTES = 16;
+    private static final int ENTRY_MAGIC = 0x53534345; // "SSCE"
+
+    private static final Map<Path, ResultCache> OPEN = new ConcurrentHashMap<>();
+
+    private final Path objects;
+    private final long maxBytes;
+    private final FileChannel channel;
+    private final MappedByteBuffer index;
+
+    private ResultCache(Path directory, long maxBytes) throws IOException {
+        this.objects = directory.resolve("objects");
+        this.maxBytes = maxBytes;
+        Files.createDirectories(objects);
+        channel = FileChannel.open(directory.resolve("index"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = HEADER + (long) SLOTS * SLOT;
+        FileLock lock = channel.lock();
+        try {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            boolean valid = channel.size() == size && channel.read(header, 0) == 8
+                    && header.getInt(0) == MAGIC && header.getInt(4) == SLOTS;
+            index = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (!valid) {
+                // New or foreign index: entries it does not list would never be evicted
+                clearObjects();
+                for (int i = 0; i < size; i += 8) {
+                    index.putLong(i, 0);
+                }
+                index.putInt(4, SLOTS);
+                index.putInt(0, MAGIC);
+            }
+        } finally {
+            lock.release();
+        }
+    }
+
+    // One instance per directory and process, shared by batch workers and server threads
+    static ResultCache open(String directory, long maxBytes) throws IOException {
+        Path path = Paths.get(directory).toAbsolutePath().normalize();
+        ResultCache cache = OPEN.get(path);
+        if (cache == null) {
+            synchronized (OPEN) {
+                cache = OPEN.get(path);
+                if (cache == null) {
+                    cache = new ResultCache(path, maxBytes);
+                    OPEN.put(path, cache);
+                }
+            }
+        }
+        return cache;
+    }
+
+    static byte[] key(Map<Integer, BigInteger> shares, int k, SecretSharing.Options options) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        String decoder = options.decodingMode.toString();
+        if (options.decodingMode == SecretSharing.DecodingMode.RANSAC) {
+            decoder += "," + options.confidence + "," + (options.seed == null ? "random" : options.seed.toString());
+        }
+        digest.update((k + "|" + (options.modulus == null ? "" : options.modulus.toString(16)) + "|" + decoder + "|")
+                .getBytes(StandardCharsets.US_ASCII));
+        ByteBuffer number = ByteBuffer.allocate(8);
+        for (Map.Entry<Integer, BigInteger> share : new TreeMap<>(shares).entrySet()) {
+            byte[] y = share.getValue().toByteArray();
+            number.clear();
+            number.putInt(share.getKey()).putInt(y.length);
+            digest.update(number.array(), 0, 8);
+            digest.update(y);
+        }
+        return digest.digest();
+    }
+
+    // The cached result for the key, or null on a miss.
+    //
+    // The probe runs without the lock, so it may race a put, an eviction or a backward shift
+    // in this or another process and see a slot half written or already moved. Nothing it
+    // reads is trusted, though: find() stops after SLOTS probes whatever it sees, only
+    // absolute reads are used (no buffer position is shared between threads), and a slot
+    // that seems to match only names a file, whose full key and lengths are checked in
+    // read(). So a race costs at most a miss, or a hit on an entry that was just replaced by
+    // one with the same key, and the lock stays off the path of every lookup.
+    SecretSharing.ReconstructionResult get(byte[] key, Map<Integer, BigInteger> shares) {
+        long high = ByteBuffer.wrap(key).getLong(0);
+        long low = ByteBuffer.wrap(key).getLong(8);
+        int slot = find(high, low);
+        if (slot < 0) {
+            return null;
+        }
+        SecretSharing.ReconstructionResult result;
+        try {
+            result = read(entryPath(high, low), key, shares);
+        } catch (IOException | RuntimeException e) {
+            result = null; // evicted meanwhile, corrupt, or not an entry this version wrote
+        }
+        if (result != null) {
+            touch(high, low);
+        }
+        return result;
+    }
+
+    // Marks the entry as just used, if it is still in the index
+    private synchronized void touch(long high, long low) {
+        try {
+            FileLock lock = channel.lock();
+            try {
+                int slot = find(high, low);
+                if (slot >= 0) {
+                    index.putLong(slotOffset(slot) + 24, System.currentTimeMillis());
+                }
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            // the hit stands; the entry only looks older to eviction
+        }
+    }
+
+    void put(byte[] key, SecretSharing.ReconstructionResult result, Map<Integer, BigInteger> shares, Log log) throws IOException {
+        long high = ByteBuffer.wrap(key).getLong(0);
+        long low = ByteBuffer.wrap(key).getLong(8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(ENTRY_MAGIC);
+            out.write(key);
+            writeNumber(out, result.secret);
+            writeShares(out, result.validShares);
+            writeShares(out, result.wrongShares);
+            out.writeInt(shares == null ? 0 : shares.size());
+            if (shares != null) {
+                for (Map.Entry<Integer, BigInteger> share : new TreeMap<>(shares).entrySet()) {
+                    out.writeInt(share.getKey());
+                    writeNumber(out, share.getValue());
+                }
+            }
+        }
+        byte[] entry = bytes.toByteArray();
+        Path target = entryPath(high, low);
+        Path temporary = Files.createTempFile(objects, "entry", ".tmp");
+        try {
+            Files.write(temporary, entry);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        synchronized (this) {
+            FileLock lock = channel.lock();
+            try {
+                int slot = find(high, low);
+                if (slot >= 0) {
+                    // Replaced entry, e.g. one whose stored shares did not match
+                    index.putLong(HEADER_BYTES, index.getLong(HEADER_BYTES) - index.getInt(slotOffset(slot) + 16) + entry.length);
+                    index.putInt(slotOffset(slot) + 16, entry.length);
+                    index.putLong(slotOffset(slot) + 24, System.currentTimeMillis());
+                } else {
+                    if (index.getInt(HEADER_ENTRIES) >= SLOTS / 4 * 3) {
+                        evict(maxBytes, log);
+                    }
+                    slot = (int) Long.remainderUnsigned(high, SLOTS);
+                    while (index.getLong(slotOffset(slot)) != 0 || index.getLong(slotOffset(slot) + 8) != 0) {
+                        slot = (slot + 1) % SLOTS;
+                    }
+                    int offset = slotOffset(slot);
+                    index.putInt(offset + 16, entry.length);
+                    index.putLong(offset + 24, System.currentTimeMillis());
+                    index.putLong(offset + 8, low);
+                    index.putLong(offset, high);
+                    index.putInt(HEADER_ENTRIES, index.getInt(HEADER_ENTRIES) + 1);
+                    index.putLong(HEADER_BYTES, index.getLong(HEADER_BYTES) + entry.length);
+                }
+                if (index.getLong(HEADER_BYTES) > maxBytes) {
+                    evict(maxBytes / 10 * 9, log);
+                }
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private int find(long high, long low) {
+        int slot = (int) Long.remainderUnsigned(high, SLOTS);
+        for (int probe = 0; probe < SLOTS; probe++) {
+            int offset = slotOffset(slot);
+            long slotHigh = index.getLong(offset);
+            long slotLow = index.getLong(offset + 8);
+            if (slotHigh == high && slotLow == low) {
+                return slot;
+            }
+            if (slotHigh == 0 && slotLow == 0) {
+                return -1;
+            }
+            slot = (slot + 1) % SLOTS;
+        }
+        return -1;
+    }
+
+    // Deletes least recently used entries until they take at most `targetBytes` and fill
+    // at most half of the slots; called with the lock held
+    private void evict(long targetBytes, Log log) {
+        List<long[]> used = new ArrayList<>(); // {last used, slot}
+        for (int slot = 0; slot < SLOTS; slot++) {
+            int offset = slotOffset(slot);
+            if (index.getLong(offset) != 0 || index.getLong(offset + 8) != 0) {
+                used.add(new long[] {index.getLong(offset + 24), slot});
+            }
+        }
+        used.sort((a, b) -> Long.compare(a[0], b[0]));
+        long bytes = index.getLong(HEADER_BYTES);
+        int entries = index.getInt(HEADER_ENTRIES);
+        // Slots move during deletion, so entries are found again by key
+        List<long[]> victims = new ArrayList<>();
+        for (long[] candidate : used) {
+            if (bytes <= targetBytes && entries <= SLOTS / 2) {
+                break;
+            }
+            int offset = slotOffset((int) candidate[1]);
+            victims.add(new long[] {index.getLong(offset), index.getLong(offset + 8)});
+            bytes -= index.getInt(offset + 16);
+            entries--;
+        }
+        for (long[] victim : victims) {
+            int slot = find(victim[0], victim[1]);
+            if (slot < 0) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(entryPath(victim[0], victim[1]));
+            } catch (IOException e) {
+                // an orphaned file is only wasted space
+            }
+            remove(slot);
+        }
+        if (log.verbose && !victims.isEmpty()) {
+            log.info("Evicted " + victims.size() + " cached results");
+        }
+    }
+
+    // Backward-shift deletion keeps every probe sequence free of holes
+    private void remove(int slot) {
+        int offset = slotOffset(slot);
+        index.putInt(HEADER_ENTRIES, index.getInt(HEADER_ENTRIES) - 1);
+        index.putLong(HEADER_BYTES, index.getLong(HEADER_BYTES) - index.getInt(offset + 16));
+        int hole = slot;
+        int next = (slot + 1) % SLOTS;
+        while (true) {
+            int nextOffset = slotOffset(next);
+            long high = index.getLong(nextOffset);
+            if (high == 0 && index.getLong(nextOffset + 8) == 0) {
+                break;
+            }
+            int home = (int) Long.remainderUnsigned(high, SLOTS);
+            // The entry may move into the hole unless its home lies cyclically in (hole, next]
+            boolean movable = hole <= next ? home <= hole || home > next : home <= hole && home > next;
+            if (movable) {
+                int holeOffset = slotOffset(hole);
+                for (int i = 0; i < SLOT; i += 8) {
+                    index.putLong(holeOffset + i, index.getLong(nextOffset + i));
+                }
+                hole = next;
+            }
+            next = (next + 1) % SLOTS;
+        }
+        int holeOffset = slotOffset(hole);
+        for (int i = 0; i < SLOT; i += 8) {
+            index.putLong(holeOffset + i, 0);
+        }
+    }
+
+    private SecretSharing.ReconstructionResult read(Path path, byte[] key, Map<Integer, BigInteger> shares) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)))) {
+            byte[] storedKey = new byte[key.length];
+            if (in.readInt() != ENTRY_MAGIC) {
+                return null;
+            }
+            in.readFully(storedKey);
+            if (!Arrays.equals(storedKey, key)) {
+                return null;
+            }
+            SecretSharing.ReconstructionResult result = new SecretSharing.ReconstructionResult();
+            result.secret = readNumber(in);
+            readShares(in, result.validShares);
+            readShares(in, result.wrongShares);
+            int stored = in.readInt();
+            if (stored < 0 || stored > in.available() / 8) {
+                throw new IOException("Corrupt cache entry, bad share count: " + path);
+            }
+            if (stored > 0) {
+                if (stored != shares.size()) {
+                    return null;
+                }
+                for (int i = 0; i < stored; i++) {
+                    int x = in.readInt();
+                    if (!readNumber(in).equals(shares.get(x))) {
+                        return null;
+                    }
+                }
+            }
+            return result;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private Path entryPath(long high, long low) {
+        return objects.resolve(String.format("%016x%016x", high, low));
+    }
+
+    private void clearObjects() throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(objects)) {
+            for (Path entry : entries) {
+                Files.deleteIfExists(entry);
+            }
+        }
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER + slot * SLOT;
+    }
+
+    private static void writeNumber(DataOutputStream out, BigInteger value) throws IOException {
+        byte[] bytes = value.toByteArray();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // Counts and lengths in an entry are checked against the bytes left in it before anything
+    // is allocated, so a damaged file is a miss rather than a huge array
+    private static BigInteger readNumber(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 1 || length > in.available()) {
+            throw new IOException("Corrupt cache entry, bad number length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new BigInteger(bytes);
+    }
+
+    private static void writeShares(DataOutputStream out, Set<Integer> xs) throws IOException {
+        out.writeInt(xs.size());
+        for (int x : xs) {
+            out.writeInt(x);
+        }
+    }
+
+    private static void readShares(DataInputStream in, Set<Integer> xs) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > in.available() / 4) {
+            throw new IOException("Corrupt cache entry, bad share count " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            xs.add(in.readInt());
+        }
+    }
+}
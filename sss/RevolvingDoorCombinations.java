@@ -0,0 +1,111 @@
+package sss;
+
+// k-subsets of {0, .., n-1} in revolving-door (minimal change) order.
+//
+// Consecutive subsets differ by exactly one element leaving and one entering, which
+// lets callers update per-subset state incrementally instead of rebuilding it.
+// Follows Knuth's Algorithm R (TAOCP 7.2.1.3); needs 2 <= k < n.
+final class RevolvingDoorCombinations {
+
+    private final int n;
+    private final int k;
+    // c[1..k] is the current subset in increasing order, c[k + 1] = n is a sentinel
+    private final int[] c;
+    // The subset again, but with each element staying in the same slot while it is a member
+    private final int[] slots;
+    private final int[] slotOf;
+    private boolean started;
+    private int removed = -1;
+    private int added = -1;
+    private int changedSlot = -1;
+
+    RevolvingDoorCombinations(int n, int k) {
+        if (k < 2 || k >= n) {
+            throw new IllegalArgumentException("Revolving-door order needs 2 <= k < n, got k = " + k + ", n = " + n);
+        }
+        this.n = n;
+        this.k = k;
+        this.c = new int[k + 2];
+        this.slots = new int[k];
+        this.slotOf = new int[n];
+    }
+
+    // Current subset; each element keeps its slot for as long as it stays in the subset
+    int[] slots() {
+        return slots;
+    }
+
+    // Element that left, element that entered and the slot it took on the last step
+    int removed() {
+        return removed;
+    }
+
+    int added() {
+        return added;
+    }
+
+    int changedSlot() {
+        return changedSlot;
+    }
+
+    boolean next() {
+        if (!started) {
+            started = true;
+            for (int j = 1; j <= k; j++) {
+                c[j] = j - 1;
+                slots[j - 1] = j - 1;
+                slotOf[j - 1] = j - 1;
+            }
+            c[k + 1] = n;
+            return true;
+        }
+
+        // R3: easy case, move c[1]
+        if ((k & 1) == 1) {
+            if (c[1] + 1 < c[2]) {
+                swap(c[1], c[1] + 1);
+                c[1]++;
+                return true;
+            }
+        } else if (c[1] > 0) {
+            swap(c[1], c[1] - 1);
+            c[1]--;
+            return true;
+        }
+
+        int j = 2;
+        boolean tryDecrease = (k & 1) == 1;
+        while (j <= k) {
+            if (tryDecrease) {
+                // R4: here c[j] = c[j - 1] + 1
+                if (c[j] >= j) {
+                    swap(c[j], j - 2);
+                    c[j] = c[j - 1];
+                    c[j - 1] = j - 2;
+                    return true;
+                }
+                j++;
+            } else {
+                // R5: here c[j - 1] = j - 2
+                if (c[j] + 1 < c[j + 1]) {
+                    swap(c[j - 1], c[j] + 1);
+                    c[j - 1] = c[j];
+                    c[j]++;
+                    return true;
+                }
+                j++;
+            }
+            tryDecrease = !tryDecrease;
+        }
+        return false;
+    }
+
+    private void swap(int out, int in) {
+        int slot = slotOf[out];
+        slots[slot] = in;
+        slotOf[in] = slot;
+        removed = out;
+        added = in;
+        changedSlot = slot;
+    }
+}
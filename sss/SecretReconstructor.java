@@ -0,0 +1,165 @@
+package sss;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// The reconstruction pipeline as a library: configure once, then reconstruct any number of
+// documents or share sets, from any number of threads.
+//
+//     SecretReconstructor reconstructor = SecretReconstructor.builder()
+//             .decoder("berlekamp-welch")
+//             .parallelism(0)
+//             .build();
+//     BigInteger secret = reconstructor.reconstruct(Paths.get("testcase2.json")).secret();
+//
+// An instance holds its own copy of the settings and nothing else that changes, so it is
+// safe to share; a Builder can be changed and built again for another configuration. The
+// per-call work is the same as for the command line (which runs through this class): the
+// single-pass tokenizer, mapped input and the decoders chosen by the settings, with the
+// process-wide pieces (metrics, the result cache per directory, the fork/join pool) shared
+// between instances. Progress output is a setting of the instance, see Builder.verbose.
+public final class SecretReconstructor {
+
+    private final SecretSharing.Options options;
+
+    SecretReconstructor(SecretSharing.Options options) {
+        this.options = options.copy();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // A JSON document in the assignment or function format
+    public Result reconstruct(CharSequence json) {
+        return new Result(SecretSharing.reconstruct(json, options));
+    }
+
+    // A JSON document or a binary share container, mapped rather than read
+    public Result reconstruct(Path path) throws IOException {
+        if (ShareContainer.isContainer(path)) {
+            return new Result(SecretSharing.reconstruct(ShareContainer.read(path, options.log), options));
+        }
+        return new Result(SecretSharing.reconstruct(ShareInput.read(path.toString()), options));
+    }
+
+    // Decoded shares x -> f(x) with threshold k, any of which may be wrong
+    public Result reconstruct(Map<Integer, BigInteger> shares, int k) {
+        SecretSharing.SecretSharingInput input = new SecretSharing.SecretSharingInput();
+        input.n = shares.size();
+        input.k = k;
+        input.hasWrongShares = true;
+        input.decodedShares = shares;
+        SecretSharing.validateNK(input.n, input.k);
+        return new Result(SecretSharing.reconstruct(input, options));
+    }
+
+    // The recovered secret with the x-coordinates that agree and disagree with it
+    public static final class Result {
+
+        private final BigInteger secret;
+        private final Set<Integer> validShares;
+        private final Set<Integer> wrongShares;
+
+        private Result(SecretSharing.ReconstructionResult result) {
+            this.secret = result.secret;
+            this.validShares = Collections.unmodifiableSet(new TreeSet<>(result.validShares));
+            this.wrongShares = Collections.unmodifiableSet(new TreeSet<>(result.wrongShares));
+        }
+
+        public BigInteger secret() {
+            return secret;
+        }
+
+        public Set<Integer> validShares() {
+            return validShares;
+        }
+
+        public Set<Integer> wrongShares() {
+            return wrongShares;
+        }
+
+        @Override
+        public String toString() {
+            return "Result[secret=" + secret + ", validShares=" + validShares + ", wrongShares=" + wrongShares + "]";
+        }
+    }
+
+    // Settings with the same names, defaults and checks as the command-line flags
+    public static final class Builder {
+
+        private final SecretSharing.Options options = new SecretSharing.Options();
+
+        private Builder() {
+        }
+
+        // combinations (default), berlekamp-welch (or bw) or ransac
+        public Builder decoder(String name) {
+            options.decodingMode = SecretSharing.DecodingMode.fromName(name);
+            return this;
+        }
+
+        // Interpolate over GF(p); overrides a prime given in the document
+        public Builder prime(BigInteger prime) {
+            options.modulus = PrimeField.requirePrime(prime);
+            return this;
+        }
+
+        // A prime in decimal, hex (0x...) or a named one such as p256, as for --prime
+        public Builder prime(String prime) {
+            options.modulus = PrimeField.parseModulus(prime);
+            return this;
+        }
+
+        // Worker threads for the combination search, 0 for all cores
+        public Builder parallelism(int threads) {
+            options.setParallelism(threads);
+            return this;
+        }
+
+        // ransac: probability that no larger consensus was missed
+        public Builder confidence(double confidence) {
+            options.setConfidence(confidence);
+            return this;
+        }
+
+        // ransac: seed for reproducible sampling, SecureRandom without one
+        public Builder seed(long seed) {
+            options.seed = seed;
+            return this;
+        }
+
+        // Progress and warning output on stdout and stderr (on by default, off as with --quiet);
+        // results are returned, never printed
+        public Builder verbose(boolean verbose) {
+            options.log = Log.of(verbose);
+            return this;
+        }
+
+        // Keep results on disk in this directory, keyed by the decoded share set
+        public Builder cache(Path directory) {
+            options.cacheDirectory = directory.toString();
+            return this;
+        }
+
+        public Builder cacheSize(long bytes) {
+            options.setCacheSize(bytes);
+            return this;
+        }
+
+        // Also store the decoded shares, checked on every hit
+        public Builder cacheShares(boolean cacheShares) {
+            options.cacheShares = cacheShares;
+            return this;
+        }
+
+        public SecretReconstructor build() {
+            return new SecretReconstructor(options);
+        }
+    }
+}
@@ -0,0 +1,998 @@
+package sss;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.regex.*;
+
+public class SecretSharing {
+    
+    public static void main(String[] args) {
+        try {
+            if (args.length > 0 && args[0].equals("split")) {
+                ShareSplitter.main(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+            if (args.length > 0 && args[0].equals("convert")) {
+                ShareContainer.main(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+            Options options = parseArguments(args);
+            if (options.stream) {
+                ShareStream.run(options);
+            } else if (options.httpPort >= 0 || options.unixSocket != null) {
+                ReconstructionServer.run(options);
+            } else if (options.batch) {
+                BatchRunner.run(options);
+            } else if (options.files.isEmpty()) {
+                // Process both test cases for the assignment
+                SecretReconstructor reconstructor = new SecretReconstructor(options);
+                System.out.println("=== Test Case 1 ===");
+                BigInteger secret1 = processFile("testcase1.json", reconstructor);
+                System.out.println("Secret for Test Case 1: " + secret1);
+                
+                System.out.println("\n=== Test Case 2 ===");
+                BigInteger secret2 = processFile("testcase2.json", reconstructor);
+                System.out.println("Secret for Test Case 2: " + secret2);
+            } else {
+                // Process single file ("-" reads the document from stdin)
+                String filename = options.files.get(0);
+                BigInteger secret = processFile(filename, new SecretReconstructor(options));
+                System.out.println("Secret: " + secret);
+            }
+            if (options.metricsFormat != null) {
+                System.err.print(options.metricsFormat.equals("json") ? Metrics.toJson() + "\n" : Metrics.toPrometheus());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+    
+    // Parse command line flags; everything that is not a flag is an input file
+    static Options parseArguments(String[] args) {
+        Options options = new Options();
+        for (String arg : args) {
+            if (arg.startsWith("--decoder=")) {
+                options.decodingMode = DecodingMode.fromName(arg.substring("--decoder=".length()));
+            } else if (arg.startsWith("--confidence=")) {
+                options.setConfidence(Double.parseDouble(arg.substring("--confidence=".length())));
+            } else if (arg.startsWith("--seed=")) {
+                options.seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--cache=")) {
+                options.cacheDirectory = arg.substring("--cache=".length());
+            } else if (arg.startsWith("--cache-size=")) {
+                options.setCacheSize(parseSize(arg.substring("--cache-size=".length())));
+            } else if (arg.equals("--cache-shares")) {
+                options.cacheShares = true;
+            } else if (arg.startsWith("--prime=")) {
+                options.modulus = PrimeField.parseModulus(arg.substring("--prime=".length()));
+            } else if (arg.startsWith("--parallelism=")) {
+                options.setParallelism(Integer.parseInt(arg.substring("--parallelism=".length())));
+            } else if (arg.equals("--batch")) {
+                options.batch = true;
+            } else if (arg.startsWith("--output=")) {
+                options.output = arg.substring("--output=".length());
+            } else if (arg.startsWith("--order=")) {
+                options.completionOrder = parseOrder(arg.substring("--order=".length()));
+            } else if (arg.startsWith("--batch-threads=")) {
+                options.batchThreads = parsePositive(arg, "--batch-threads=");
+            } else if (arg.startsWith("--in-flight=")) {
+                options.inFlight = parsePositive(arg, "--in-flight=");
+            } else if (arg.startsWith("--serve-http=")) {
+                options.httpPort = Integer.parseInt(arg.substring("--serve-http=".length()));
+                if (options.httpPort < 0 || options.httpPort > 65535) {
+                    throw new IllegalArgumentException("Port must be between 0 and 65535");
+                }
+            } else if (arg.startsWith("--serve-unix=")) {
+                options.unixSocket = arg.substring("--serve-unix=".length());
+            } else if (arg.startsWith("--workers=")) {
+                options.workers = parsePositive(arg, "--workers=");
+            } else if (arg.equals("--stream")) {
+                options.stream = true;
+            } else if (arg.equals("--quiet")) {
+                options.log = Log.QUIET;
+            } else if (arg.startsWith("--metrics=")) {
+                options.metricsFormat = arg.substring("--metrics=".length());
+                if (!options.metricsFormat.equals("prometheus") && !options.metricsFormat.equals("json")) {
+                    throw new IllegalArgumentException("Unknown metrics format '" + options.metricsFormat + "', expected prometheus or json");
+                }
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            } else {
+                options.files.add(arg);
+            }
+        }
+        if (options.batch && options.files.isEmpty()) {
+            throw new IllegalArgumentException("--batch needs a directory, a glob or an NDJSON file");
+        }
+        return options;
+    }
+    
+    private static boolean parseOrder(String order) {
+        switch (order) {
+            case "input":
+                return false;
+            case "completion":
+                return true;
+            default:
+                throw new IllegalArgumentException("Unknown order '" + order + "', expected input or completion");
+        }
+    }
+    
+    // Byte count with an optional K, M or G suffix
+    private static long parseSize(String size) {
+        char unit = Character.toUpperCase(size.charAt(size.length() - 1));
+        long multiplier = unit == 'K' ? 1L << 10 : unit == 'M' ? 1L << 20 : unit == 'G' ? 1L << 30 : 1;
+        String digits = multiplier == 1 ? size : size.substring(0, size.length() - 1);
+        return Long.parseLong(digits) * multiplier;
+    }
+    
+    private static int parsePositive(String arg, String flag) {
+        int value = Integer.parseInt(arg.substring(flag.length()));
+        if (value <= 0) {
+            throw new IllegalArgumentException(flag.substring(0, flag.length() - 1) + " must be positive");
+        }
+        return value;
+    }
+    
+    private static BigInteger processFile(String filename, SecretReconstructor reconstructor) throws IOException {
+        if (filename.equals(ShareInput.STDIN)) {
+            return reconstructor.reconstruct(ShareInput.read(filename)).secret();
+        }
+        // Map the JSON input file, or load a binary share container as it is, already decoded
+        return reconstructor.reconstruct(Paths.get(filename)).secret();
+    }
+    
+    // Full pipeline for one JSON document: parse, decode the shares and recover the secret
+    static ReconstructionResult reconstruct(CharSequence jsonContent, Options options) {
+        Metrics.RECONSTRUCTIONS.increment();
+        try {
+            return reconstructDocument(parseJSON(jsonContent, options.log), options);
+        } catch (RuntimeException e) {
+            Metrics.RECONSTRUCTION_FAILURES.increment();
+            throw e;
+        }
+    }
+    
+    // The same for a document that is already parsed, such as a share container
+    static ReconstructionResult reconstruct(SecretSharingInput input, Options options) {
+        Metrics.RECONSTRUCTIONS.increment();
+        try {
+            return reconstructDocument(input, options);
+        } catch (RuntimeException e) {
+            Metrics.RECONSTRUCTION_FAILURES.increment();
+            throw e;
+        }
+    }
+    
+    private static ReconstructionResult reconstructDocument(SecretSharingInput input, Options options) {
+        if (options.log.verbose) {
+            options.log.info("n = " + input.n + ", k = " + input.k);
+        }
+        
+        // A prime on the command line takes precedence over one given in the document
+        if (options.modulus == null && input.modulus != null) {
+            options = options.withModulus(input.modulus);
+        }
+        if (options.modulus != null) {
+            if (options.log.verbose) {
+                options.log.info("Interpolating over GF(p), p = " + options.modulus);
+            }
+        }
+        
+        // Decode all shares from expressions or base-encoded values
+        Map<Integer, BigInteger> decodedShares = input.decodedShares;
+        if (decodedShares == null) {
+            long decodeStart = System.nanoTime();
+            decodedShares = decodeShares(input.shares, options.log);
+            Metrics.record(Metrics.Stage.DECODE, decodeStart);
+        }
+        
+        // Determine if we should use combinations (for wrong share detection) or exact k shares
+        if (input.hasWrongShares) {
+            // Find the secret while detecting wrong shares (error detection mode)
+            return findSecret(decodedShares, input.k, options);
+        } else {
+            // Use exactly k shares (assignment mode)
+            List<Integer> keys = new ArrayList<>(decodedShares.keySet());
+            List<Integer> selectedKeys = keys.subList(0, Math.min(input.k, keys.size()));
+            if (options.log.verbose) {
+                options.log.info("Using shares with x-coordinates: " + selectedKeys);
+            }
+            ReconstructionResult result = new ReconstructionResult();
+            long interpolateStart = System.nanoTime();
+            result.secret = lagrangeInterpolation(decodedShares, selectedKeys, options.modulus);
+            Metrics.record(Metrics.Stage.INTERPOLATE, interpolateStart);
+            result.validShares.addAll(selectedKeys);
+            return result;
+        }
+    }
+    
+    // Original line-by-line reader, kept as the baseline for PipelineBenchmarks
+    static String readFileBuffered(String filename) throws IOException {
+        StringBuilder content = new StringBuilder();
+        BufferedReader reader = new BufferedReader(new FileReader(filename));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            content.append(line);
+        }
+        reader.close();
+        return content.toString();
+    }
+    
+    // Parse JSON in a single pass, detecting the format from the document structure
+    static SecretSharingInput parseJSON(CharSequence json, Log log) {
+        return ShareJsonTokenizer.parse(json, log);
+    }
+    
+    // Original regex-based parser, kept as the baseline for PipelineBenchmarks
+    static SecretSharingInput parseJSONRegex(String json, Log log) {
+        SecretSharingInput input = new SecretSharingInput();
+        
+        // Clean the JSON string - remove BOM and trim
+        json = json.trim();
+        if (json.startsWith("\uFEFF")) {
+            json = json.substring(1);
+        }
+        // Remove any other potential problematic characters at start
+        while (json.length() > 0 && json.charAt(0) != '{') {
+            json = json.substring(1);
+        }
+        
+        try {            
+            // Check if this is assignment format by looking for the pattern
+            boolean isAssignmentFormat = json.indexOf("base") >= 0 && json.indexOf("value") >= 0;
+            
+            if (isAssignmentFormat) {
+                // Assignment format: {"keys": {"n": 4, "k": 3}, "1": {"base": "10", "value": "4"}}
+                parseAssignmentFormat(json, input, log);
+                input.hasWrongShares = false; // Assignment assumes all shares are valid
+            } else {
+                // Function format: {"n": 4, "k": 3, "1": "sum(1, 2)", "2": "multiply(3, 4)"}
+                parseFunctionFormat(json, input, log);
+                input.hasWrongShares = true; // Function format may have wrong shares
+            }
+            
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number format in JSON: " + e.getMessage());
+        }
+        
+        return input;
+    }
+    
+    private static void parseAssignmentFormat(String json, SecretSharingInput input, Log log) {
+        // Extract n value from keys object
+        Matcher nMatcher = RegexPatterns.KEYS_N.matcher(json);
+        if (nMatcher.find()) {
+            input.n = Integer.parseInt(nMatcher.group(1));
+        } else {
+            throw new IllegalArgumentException("Missing 'n' value in keys");
+        }
+        
+        // Extract k value from keys object
+        Matcher kMatcher = RegexPatterns.KEYS_K.matcher(json);
+        if (kMatcher.find()) {
+            input.k = Integer.parseInt(kMatcher.group(1));
+        } else {
+            throw new IllegalArgumentException("Missing 'k' value in keys");
+        }
+        
+        // Validate n and k values
+        validateNK(input.n, input.k);
+        
+        // Extract shares in assignment format
+        input.shares = new HashMap<>();
+        
+        // Match share objects like "1": { "base": "10", "value": "4" }
+        Matcher shareMatcher = RegexPatterns.ASSIGNMENT_SHARE.matcher(json);
+        
+        while (shareMatcher.find()) {
+            int key = Integer.parseInt(shareMatcher.group(1));
+            int base = Integer.parseInt(shareMatcher.group(2));
+            String value = shareMatcher.group(3);
+            
+            if (key <= 0) {
+                if (log.verbose) {
+                    log.warn("Warning: Invalid share key " + key + " (must be positive), skipping...");
+                }
+                continue;
+            }
+            if (base < 2 || base > 36) {
+                if (log.verbose) {
+                    log.warn("Warning: Invalid base " + base + " for share " + key + ", skipping...");
+                }
+                continue;
+            }
+            
+            // Convert base-encoded value to decimal and store as string
+            try {
+                BigInteger decimalValue = new BigInteger(value, base);
+                input.shares.put(key, decimalValue.toString());
+                if (log.verbose) {
+                    log.info("Share " + key + ": base " + base + " value '" + value + "' = " + decimalValue);
+                }
+            } catch (NumberFormatException e) {
+                if (log.verbose) {
+                    log.warn("Error decoding share " + key + ": Invalid number '" + value + "' in base " + base);
+                }
+            }
+        }
+        
+        // Validate we have enough shares
+        requireEnoughShares(input);
+        
+        if (log.verbose) {
+            log.info("Successfully parsed assignment format JSON: n=" + input.n + ", k=" + input.k + ", shares=" + input.shares.size());
+        }
+    }
+    
+    private static void parseFunctionFormat(String json, SecretSharingInput input, Log log) {
+        // Extract n value
+        Matcher nMatcher = RegexPatterns.N.matcher(json);
+        if (nMatcher.find()) {
+            input.n = Integer.parseInt(nMatcher.group(1));
+        } else {
+            throw new IllegalArgumentException("Missing or invalid 'n' value in JSON");
+        }
+        
+        // Extract k value
+        Matcher kMatcher = RegexPatterns.K.matcher(json);
+        if (kMatcher.find()) {
+            input.k = Integer.parseInt(kMatcher.group(1));
+        } else {
+            throw new IllegalArgumentException("Missing or invalid 'k' value in JSON");
+        }
+        
+        // Validate n and k values
+        validateNK(input.n, input.k);
+        
+        // Extract shares in function format
+        input.shares = new HashMap<>();
+        Matcher shareMatcher = RegexPatterns.FUNCTION_SHARE.matcher(json);
+        while (shareMatcher.find()) {
+            int key = Integer.parseInt(shareMatcher.group(1));
+            String value = shareMatcher.group(2);
+            if (key <= 0) {
+                if (log.verbose) {
+                    log.warn("Warning: Invalid share key " + key + " (must be positive), skipping...");
+                }
+                continue;
+            }
+            input.shares.put(key, value);
+        }
+        
+        // Validate we have enough shares
+        requireEnoughShares(input);
+        
+        if (log.verbose) {
+            log.info("Successfully parsed function format JSON: n=" + input.n + ", k=" + input.k + ", shares=" + input.shares.size());
+        }
+    }
+    
+    // Patterns of the regex parser, compiled once on its first use; the tokenizer path never
+    // loads this class, so a normal run does not pay for java.util.regex at startup
+    private static final class RegexPatterns {
+        static final Pattern KEYS_N = Pattern.compile("\"keys\"\\s*:\\s*\\{[^}]*\"n\"\\s*:\\s*(\\d+)");
+        static final Pattern KEYS_K = Pattern.compile("\"keys\"\\s*:\\s*\\{[^}]*\"k\"\\s*:\\s*(\\d+)");
+        static final Pattern ASSIGNMENT_SHARE = Pattern.compile(
+                "\"(\\d+)\"\\s*:\\s*\\{\\s*\"base\"\\s*:\\s*\"(\\d+)\"\\s*,\\s*\"value\"\\s*:\\s*\"([^\"]+)\"\\s*\\}");
+        static final Pattern N = Pattern.compile("\"n\"\\s*:\\s*(\\d+)");
+        static final Pattern K = Pattern.compile("\"k\"\\s*:\\s*(\\d+)");
+        static final Pattern FUNCTION_SHARE = Pattern.compile("\"(\\d+)\"\\s*:\\s*\"([^\"]+)\"");
+    }
+    
+    static void validateNK(int n, int k) {
+        if (n <= 0 || k <= 0) {
+            throw new IllegalArgumentException("n and k must be positive integers");
+        }
+        if (k > n) {
+            throw new IllegalArgumentException("k cannot be greater than n");
+        }
+        if (k < 2) {
+            throw new IllegalArgumentException("k must be at least 2 for meaningful secret sharing");
+        }
+    }
+    
+    static void requireEnoughShares(SecretSharingInput input) {
+        int count = input.decodedShares != null ? input.decodedShares.size() : input.shares.size();
+        if (count < input.k) {
+            throw new IllegalArgumentException("Not enough shares provided. Need at least " + input.k + " shares, but only " + count + " found");
+        }
+    }
+    
+    // Decode share values (handles both function expressions and direct decimal values)
+    static Map<Integer, BigInteger> decodeShares(Map<Integer, String> shares, Log log) {
+        Map<Integer, BigInteger> decoded = new HashMap<>();
+        
+        for (Map.Entry<Integer, String> entry : shares.entrySet()) {
+            String expression = entry.getValue();
+            if (expression == null || expression.trim().isEmpty()) {
+                if (log.verbose) {
+                    log.warn("Warning: Empty expression for share " + entry.getKey() + ", skipping...");
+                }
+                continue;
+            }
+            
+            // Plain numbers and (nested) function expressions, compiled and cached; a share
+            // that does not evaluate is reported and skipped instead of failing the document
+            ShareExpressions.Value value = ShareExpressions.evaluate(expression);
+            if (value.error != null) {
+                if (log.verbose) {
+                    log.warn("Error decoding share " + entry.getKey() + ": " + value.error);
+                }
+                continue;
+            }
+            decoded.put(entry.getKey(), value.value);
+        }
+        
+        return decoded;
+    }
+    
+    // Find secret with error detection; with --cache the result is looked up by share set first
+    static ReconstructionResult findSecret(Map<Integer, BigInteger> shares, int k, Options options) {
+        if (options.cacheDirectory == null) {
+            return searchSecret(shares, k, options);
+        }
+        ResultCache cache;
+        try {
+            cache = ResultCache.open(options.cacheDirectory, options.cacheSize);
+        } catch (IOException e) {
+            if (options.log.verbose) {
+                options.log.warn("Result cache unavailable: " + e.getMessage());
+            }
+            return searchSecret(shares, k, options);
+        }
+        byte[] key = ResultCache.key(shares, k, options);
+        ReconstructionResult cached = cache.get(key, shares);
+        if (cached != null) {
+            Metrics.CACHE_HITS.increment();
+            if (options.log.verbose) {
+                options.log.info("Result for these " + shares.size() + " shares found in the cache");
+            }
+            reportShares(cached, options.log);
+            return cached;
+        }
+        Metrics.CACHE_MISSES.increment();
+        ReconstructionResult result = searchSecret(shares, k, options);
+        try {
+            cache.put(key, result, options.cacheShares ? shares : null, options.log);
+        } catch (IOException e) {
+            if (options.log.verbose) {
+                options.log.warn("Could not store the result in the cache: " + e.getMessage());
+            }
+        }
+        return result;
+    }
+    
+    // Voting over combinations, Berlekamp-Welch decoding or random sampling, as the options ask
+    private static ReconstructionResult searchSecret(Map<Integer, BigInteger> shares, int k, Options options) {
+        // Validate we have enough shares after decoding
+        if (shares.size() < k) {
+            throw new IllegalArgumentException("Not enough valid shares after decoding. Need " + k + " but only have " + shares.size());
+        }
+        
+        if (options.decodingMode == DecodingMode.BERLEKAMP_WELCH) {
+            if (options.modulus != null) {
+                throw new IllegalArgumentException("Berlekamp-Welch decoding is only available over the integers");
+            }
+            if (options.log.verbose) {
+                options.log.info("Decoding " + shares.size() + " shares with Berlekamp-Welch (k = " + k + ", up to " + (shares.size() - k) / 2 + " correctable errors)...");
+            }
+            ReconstructionResult result = BerlekampWelchDecoder.decode(shares, k);
+            reportShares(result, options.log);
+            return result;
+        }
+        
+        if (options.decodingMode == DecodingMode.RANSAC) {
+            if (options.log.verbose) {
+                options.log.info("Sampling subsets of " + k + " shares from " + shares.size() + " available shares (confidence " + options.confidence + ")...");
+            }
+            long searchStart = System.nanoTime();
+            Random random = options.seed == null ? new SecureRandom() : new Random(options.seed);
+            ReconstructionResult result = RandomConsensus.decode(shares, k, options.modulus, options.confidence, random, options.log);
+            Metrics.record(Metrics.Stage.ENUMERATE, searchStart);
+            reportShares(result, options.log);
+            return result;
+        }
+        
+        int n = shares.size();
+        int[] xs = new int[n];
+        BigInteger[] ys = new BigInteger[n];
+        int position = 0;
+        for (Map.Entry<Integer, BigInteger> share : shares.entrySet()) {
+            xs[position] = share.getKey();
+            ys[position] = share.getValue();
+            position++;
+        }
+        
+        // Over a prime field every share is converted to Montgomery form once, up front;
+        // over the integers, values that fit in a long are interpolated in machine words
+        PrimeField.Points field = options.modulus == null ? null : new PrimeField(options.modulus).new Points(xs, ys);
+        SmallShares small = options.modulus == null ? SmallShares.of(xs, ys) : null;
+        
+        BigInteger combinationCount = Combinations.count(n, k);
+        long totalCombinations = combinationCount.bitLength() < 63 ? combinationCount.longValue() : Long.MAX_VALUE;
+        if (options.log.verbose) {
+            options.log.info("Testing " + combinationCount + " combinations of " + k + " shares from " + shares.size() + " available shares...");
+        }
+        
+        // Only the vote count and the supporting shares of each distinct secret are kept
+        long searchStart = System.nanoTime();
+        VoteTable table;
+        boolean parallel = options.parallelism > 1;
+        if (parallel && combinationCount.bitLength() >= 63) {
+            // The parallel ranges are split by long rank, so a larger space is scanned in
+            // order on this thread instead
+            if (options.log.verbose) {
+                options.log.warn("Too many combinations to split into ranges, searching sequentially");
+            }
+            parallel = false;
+        }
+        if (parallel) {
+            table = ParallelCombinationSearch.vote(xs, ys, k, field, small, options.parallelism, options.log);
+        } else {
+            table = voteSequentially(xs, ys, k, field, small, totalCombinations, options.log);
+        }
+        Map<BigInteger, Vote> votes = table.votes;
+        long validCombinations = table.valid;
+        long testedCombinations = table.tested;
+        Metrics.record(Metrics.Stage.ENUMERATE, searchStart);
+        Metrics.COMBINATIONS_TESTED.add(testedCombinations);
+        Metrics.COMBINATIONS_FAILED.add(testedCombinations - validCombinations);
+        
+        if (validCombinations == 0) {
+            throw new RuntimeException("No valid combinations found. All share combinations failed interpolation.");
+        }
+        
+        // Find the most frequent secret (correct one). A tie goes to the smallest secret, so
+        // the winner depends neither on the map's iteration order nor on the enumeration
+        // order (revolving door, lexicographic, or ranges in parallel)
+        long voteStart = System.nanoTime();
+        BigInteger correctSecret = null;
+        Vote correctVote = null;
+        
+        for (Map.Entry<BigInteger, Vote> entry : votes.entrySet()) {
+            Vote vote = entry.getValue();
+            if (correctVote == null || vote.count > correctVote.count
+                    || (vote.count == correctVote.count && entry.getKey().compareTo(correctSecret) < 0)) {
+                correctVote = vote;
+                correctSecret = entry.getKey();
+            }
+        }
+        
+        if (correctSecret == null) {
+            throw new RuntimeException("Could not determine correct secret from combinations");
+        }
+        
+        if (options.log.verbose) {
+            options.log.info("Secret found with " + correctVote.count + " occurrences out of " + validCombinations + " valid combinations");
+        }
+        
+        // Shares never seen in a winning combination because the search stopped early
+        // are checked against k - 1 shares that are known to be good
+        if (testedCombinations < totalCombinations) {
+            completeSupport(xs, ys, k, field, small, correctSecret, correctVote.support);
+        }
+        
+        // Identify wrong shares
+        ReconstructionResult result = new ReconstructionResult();
+        result.secret = correctSecret;
+        for (int i = 0; i < n; i++) {
+            if (correctVote.support.get(i)) {
+                result.validShares.add(xs[i]);
+            } else {
+                result.wrongShares.add(xs[i]);
+            }
+        }
+        Metrics.record(Metrics.Stage.VOTE, voteStart);
+        
+        reportShares(result, options.log);
+        return result;
+    }
+    
+    // Walk the combinations of k shares lazily, stopping once the leader cannot be outvoted.
+    // Over the integers subsets come in revolving-door order so the Lagrange weights can be
+    // updated in O(k) per subset; lexicographic order with full recomputation is the fallback,
+    // and is also taken for small shares, whose full recomputation in words is cheaper still.
+    private static VoteTable voteSequentially(int[] xs, BigInteger[] ys, int k, PrimeField.Points field, SmallShares small,
+                                              long totalCombinations, Log log) {
+        VoteTable table = new VoteTable(new HashMap<>());
+        boolean incremental = field == null && small == null && k >= 2 && k < xs.length && supportsIncrementalWeights(xs, ys);
+        RevolvingDoorCombinations door = incremental ? new RevolvingDoorCombinations(xs.length, k) : null;
+        Combinations lexicographic = incremental ? null : new Combinations(xs.length, k);
+        int[] combination = incremental ? door.slots() : lexicographic.indices();
+        IncrementalLagrange weights = null;
+        Vote leader = null;
+        long runnerUpCount = 0;
+        while (incremental ? door.next() : lexicographic.next()) {
+            table.tested++;
+            try {
+                BigInteger secret;
+                if (!incremental) {
+                    secret = interpolate(xs, ys, combination, field, small);
+                } else if (weights == null) {
+                    weights = new IncrementalLagrange(xs, ys, combination);
+                    secret = weights.secret();
+                } else {
+                    weights.replaced(door.changedSlot(), door.removed());
+                    secret = weights.secret();
+                }
+                Vote vote = table.record(secret, combination, xs.length);
+                if (vote == leader) {
+                    // leader extends its lead
+                } else if (leader == null || vote.count > leader.count) {
+                    runnerUpCount = leader == null ? 0 : leader.count;
+                    leader = vote;
+                } else if (vote.count > runnerUpCount) {
+                    runnerUpCount = vote.count;
+                }
+            } catch (Exception e) {
+                if (log.verbose) {
+                    log.warn("Invalid combination " + describeCombination(xs, combination) + ": " + e.getMessage());
+                }
+            }
+            
+            if (leader != null && leader.count > runnerUpCount + (totalCombinations - table.tested)) {
+                if (table.tested < totalCombinations) {
+                    if (log.verbose) {
+                        log.info("Stopped after " + table.tested + " combinations: the leading secret can no longer be outvoted");
+                    }
+                }
+                break;
+            }
+        }
+        return table;
+    }
+    
+    // Incremental weights divide by -x and by x differences, so x must be non-zero and distinct
+    private static boolean supportsIncrementalWeights(int[] xs, BigInteger[] ys) {
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < xs.length; i++) {
+            if (xs[i] == 0 || ys[i] == null || !seen.add(xs[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static void completeSupport(int[] xs, BigInteger[] ys, int k, PrimeField.Points field, SmallShares small,
+                                        BigInteger secret, BitSet support) {
+        int[] probe = new int[k];
+        int filled = 0;
+        for (int i = support.nextSetBit(0); filled < k - 1; i = support.nextSetBit(i + 1)) {
+            probe[filled++] = i;
+        }
+        for (int i = support.nextClearBit(0); i < xs.length; i = support.nextClearBit(i + 1)) {
+            probe[k - 1] = i;
+            try {
+                if (interpolate(xs, ys, probe, field, small).equals(secret)) {
+                    support.set(i);
+                }
+            } catch (Exception e) {
+                // leave the share marked as wrong
+            }
+        }
+    }
+    
+    static String describeCombination(int[] xs, int[] combination) {
+        int[] sorted = combination.clone();
+        Arrays.sort(sorted);
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < sorted.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(xs[sorted[i]]);
+        }
+        return sb.append(']').toString();
+    }
+    
+    private static void reportShares(ReconstructionResult result, Log log) {
+        Metrics.BAD_SHARES_FOUND.add(result.wrongShares.size());
+        if (!log.verbose) {
+            return;
+        }
+        if (!result.wrongShares.isEmpty()) {
+            log.info("Wrong shares detected: " + result.wrongShares);
+        } else {
+            log.info("No wrong shares detected - all shares are valid");
+        }
+        log.info("Valid shares: " + result.validShares);
+    }
+    
+    // Lagrange interpolation to find polynomial constant term (secret), over GF(modulus) if given
+    private static BigInteger lagrangeInterpolation(Map<Integer, BigInteger> shares, List<Integer> keys, BigInteger modulus) {
+        int[] xs = new int[keys.size()];
+        BigInteger[] ys = new BigInteger[keys.size()];
+        int[] indices = new int[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            xs[i] = keys.get(i);
+            ys[i] = shares.get(xs[i]);
+            indices[i] = i;
+        }
+        if (modulus != null) {
+            if (indices.length < 2) {
+                throw new IllegalArgumentException("Need at least 2 points for interpolation");
+            }
+            return new PrimeField(modulus).new Points(xs, ys).interpolateAtZero(indices);
+        }
+        SmallShares small = SmallShares.of(xs, ys);
+        return small != null ? small.interpolateAtZero(indices) : lagrangeInterpolation(xs, ys, indices);
+    }
+    
+    // Interpolate the shares at the given positions, in the prime field when one is given and
+    // in machine words when the shares are small
+    static BigInteger interpolate(int[] xs, BigInteger[] ys, int[] indices, PrimeField.Points field, SmallShares small) {
+        if (field != null) {
+            return field.interpolateAtZero(indices);
+        }
+        return small != null ? small.interpolateAtZero(indices) : lagrangeInterpolation(xs, ys, indices);
+    }
+    
+    // Lagrange interpolation over the shares at the given positions of xs/ys.
+    // f(0) = sum y_i * prod_{j != i} (-x_j) / prod_{j != i} (x_i - x_j) is summed exactly over
+    // the LCM of the denominators with a single division at the end.
+    static BigInteger lagrangeInterpolation(int[] xs, BigInteger[] ys, int[] indices) {
+        int k = indices.length;
+        if (k < 2) {
+            throw new IllegalArgumentException("Need at least 2 points for interpolation");
+        }
+        for (int index : indices) {
+            if (ys[index] == null) {
+                throw new IllegalArgumentException("Missing share value for key " + xs[index]);
+            }
+        }
+        
+        // Numerators prod_{j != i} (-x_j) from prefix and suffix products
+        BigInteger[] numerators = new BigInteger[k];
+        BigInteger prefix = BigInteger.ONE;
+        for (int i = 0; i < k; i++) {
+            numerators[i] = prefix;
+            prefix = prefix.multiply(BigInteger.valueOf(-(long) xs[indices[i]]));
+        }
+        BigInteger suffix = BigInteger.ONE;
+        for (int i = k - 1; i >= 0; i--) {
+            numerators[i] = numerators[i].multiply(suffix);
+            suffix = suffix.multiply(BigInteger.valueOf(-(long) xs[indices[i]]));
+        }
+        
+        BigInteger[] cofactors = new BigInteger[k];
+        BigInteger common = LagrangeDenominators.cofactors(xs, indices, cofactors);
+        if (common == null) {
+            // x-coordinates too far apart to factor the differences; use the gcd-based LCM
+            BigInteger[] denominators = new BigInteger[k];
+            for (int i = 0; i < k; i++) {
+                LagrangeDenominators.ChunkedProduct denominator = new LagrangeDenominators.ChunkedProduct();
+                boolean negative = false;
+                for (int j = 0; j < k; j++) {
+                    if (i != j) {
+                        long difference = (long) xs[indices[i]] - xs[indices[j]];
+                        negative ^= difference < 0;
+                        denominator.multiply(Math.abs(difference));
+                    }
+                }
+                denominators[i] = negative ? denominator.result().negate() : denominator.result();
+            }
+            return sumOverCommonDenominator(ys, indices, numerators, denominators);
+        }
+        
+        BigInteger total = BigInteger.ZERO;
+        for (int i = 0; i < k; i++) {
+            // numerator * cofactor only involves the x-coordinates, so it stays small
+            total = total.add(ys[indices[i]].multiply(numerators[i].multiply(cofactors[i])));
+        }
+        return divideExactly(total, common);
+    }
+    
+    // Exact sum of ys[indices[i]] * numerators[i] / denominators[i], with the LCM of the
+    // denominators taken by gcds; used where the denominators are not available factored
+    static BigInteger sumOverCommonDenominator(BigInteger[] ys, int[] indices, BigInteger[] numerators, BigInteger[] denominators) {
+        BigInteger common = BigInteger.ONE;
+        for (BigInteger denominator : denominators) {
+            if (denominator.signum() == 0) {
+                throw new ArithmeticException("Division by zero in Lagrange interpolation");
+            }
+            BigInteger magnitude = denominator.abs();
+            common = common.divide(common.gcd(magnitude)).multiply(magnitude);
+        }
+        
+        BigInteger total = BigInteger.ZERO;
+        for (int i = 0; i < indices.length; i++) {
+            BigInteger weight = numerators[i].multiply(common.divide(denominators[i]));
+            total = total.add(ys[indices[i]].multiply(weight));
+        }
+        return divideExactly(total, common);
+    }
+    
+    // The single division of the interpolation; a remainder means the shares are inconsistent
+    static BigInteger divideExactly(BigInteger total, BigInteger common) {
+        BigInteger[] quotientAndRemainder = total.divideAndRemainder(common);
+        if (quotientAndRemainder[1].signum() != 0) {
+            throw new ArithmeticException("Interpolated secret is not an integer, the shares are inconsistent");
+        }
+        return quotientAndRemainder[0];
+    }
+    
+    // Helper class to store parsed JSON input
+    static class SecretSharingInput {
+        int n;
+        int k;
+        Map<Integer, String> shares; // function format: share expressions
+        Map<Integer, BigInteger> decodedShares; // assignment format: values already converted from their bases
+        BigInteger modulus; // optional "prime" from the document
+        boolean hasWrongShares; // True for function format (may have wrong shares), false for assignment format
+    }
+    
+    // Number of combinations that produced one secret, and the shares they used
+    static final class Vote {
+        long count;
+        final BitSet support;
+        
+        Vote(int shareCount) {
+            support = new BitSet(shareCount);
+        }
+    }
+    
+    // Votes for every distinct secret seen while scanning combinations
+    static final class VoteTable {
+        final Map<BigInteger, Vote> votes;
+        long tested;
+        long valid;
+        
+        VoteTable(Map<BigInteger, Vote> votes) {
+            this.votes = votes;
+        }
+        
+        Vote record(BigInteger secret, int[] combination, int shareCount) {
+            Vote vote = votes.get(secret);
+            if (vote == null) {
+                vote = new Vote(shareCount);
+                votes.put(secret, vote);
+            }
+            vote.count++;
+            for (int index : combination) {
+                vote.support.set(index);
+            }
+            valid++;
+            return vote;
+        }
+        
+        // Adds the other table's votes
+        void mergeFrom(VoteTable other) {
+            for (Map.Entry<BigInteger, Vote> entry : other.votes.entrySet()) {
+                Vote vote = votes.get(entry.getKey());
+                if (vote == null) {
+                    vote = new Vote(entry.getValue().support.size());
+                    votes.put(entry.getKey(), vote);
+                }
+                vote.count += entry.getValue().count;
+                vote.support.or(entry.getValue().support);
+            }
+            tested += other.tested;
+            valid += other.valid;
+        }
+    }
+    
+    // Secret recovered by findSecret together with the shares that agree and disagree with it
+    static class ReconstructionResult {
+        BigInteger secret;
+        Set<Integer> validShares = new TreeSet<>();
+        Set<Integer> wrongShares = new TreeSet<>();
+    }
+    
+    // How findSecret locates wrong shares
+    enum DecodingMode {
+        COMBINATIONS,    // interpolate every k-subset and take a majority vote
+        BERLEKAMP_WELCH, // Reed-Solomon decoding, corrects up to (n - k) / 2 wrong shares
+        RANSAC;          // check all shares against random k-subsets, keep the largest consensus
+        
+        static DecodingMode fromName(String name) {
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "combinations":
+                    return COMBINATIONS;
+                case "berlekamp-welch":
+                case "bw":
+                    return BERLEKAMP_WELCH;
+                case "ransac":
+                    return RANSAC;
+                default:
+                    throw new IllegalArgumentException("Unknown decoder '" + name + "', expected combinations, berlekamp-welch or ransac");
+            }
+        }
+    }
+    
+    // Settings taken from the command line
+    static class Options {
+        DecodingMode decodingMode = DecodingMode.COMBINATIONS;
+        int parallelism = 1; // worker threads for the combination search
+        BigInteger modulus;  // interpolate over GF(modulus) instead of the integers
+        double confidence = 0.99; // ransac: probability that no larger consensus was missed
+        Long seed;                // ransac: seed for reproducible sampling, SecureRandom if not set
+        List<String> files = new ArrayList<>();
+        
+        // Batch mode: every file is a directory, a glob or an NDJSON file of documents
+        boolean batch;
+        String output;            // batch results file, stdout if not set
+        boolean completionOrder;  // write results as they finish instead of in input order
+        int batchThreads = Runtime.getRuntime().availableProcessors();
+        int inFlight;             // documents read ahead of the writer, 0 for 4 per thread
+        
+        // Server mode: listen on a loopback HTTP port (0 picks one) and/or a Unix socket
+        int httpPort = -1;
+        String unixSocket;
+        int workers = Runtime.getRuntime().availableProcessors();
+        
+        // Streaming mode: shares arrive one per line on stdin (or the socket) as NDJSON
+        boolean stream;
+        
+        // Result cache: findSecret results on disk, keyed by the decoded share set
+        String cacheDirectory;
+        long cacheSize = 256L << 20; // total entry bytes before least recently used ones go
+        boolean cacheShares;         // also store the decoded shares, checked on every hit
+        
+        Log log = Log.STANDARD; // progress output, Log.QUIET (--quiet) for results only
+        String metricsFormat;   // print the metrics to stderr at exit: prometheus or json
+        
+        // Settings shared by the command line and SecretReconstructor.Builder, checked the same way
+        void setConfidence(double confidence) {
+            if (!(confidence > 0 && confidence < 1)) {
+                throw new IllegalArgumentException("Confidence must be between 0 and 1, e.g. 0.999");
+            }
+            this.confidence = confidence;
+        }
+        
+        void setParallelism(int parallelism) {
+            if (parallelism < 0) {
+                throw new IllegalArgumentException("Parallelism must be positive, or 0 for all cores");
+            }
+            this.parallelism = parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+        }
+        
+        void setCacheSize(long bytes) {
+            if (bytes <= 0) {
+                throw new IllegalArgumentException("Cache size must be positive");
+            }
+            this.cacheSize = bytes;
+        }
+        
+        Options withModulus(BigInteger modulus) {
+            Options copy = copy();
+            copy.modulus = modulus;
+            return copy;
+        }
+        
+        Options withLog(Log log) {
+            Options copy = copy();
+            copy.log = log;
+            return copy;
+        }
+        
+        // A field-by-field copy with its own file list
+        Options copy() {
+            Options copy = new Options();
+            copy.decodingMode = decodingMode;
+            copy.parallelism = parallelism;
+            copy.modulus = modulus;
+            copy.confidence = confidence;
+            copy.seed = seed;
+            copy.files = new ArrayList<>(files);
+            copy.batch = batch;
+            copy.output = output;
+            copy.completionOrder = completionOrder;
+            copy.batchThreads = batchThreads;
+            copy.inFlight = inFlight;
+            copy.httpPort = httpPort;
+            copy.unixSocket = unixSocket;
+            copy.workers = workers;
+            copy.stream = stream;
+            copy.cacheDirectory = cacheDirectory;
+            copy.cacheSize = cacheSize;
+            copy.cacheShares = cacheShares;
+            copy.log = log;
+            copy.metricsFormat = metricsFormat;
+            return copy;
+        }
+    }
+}
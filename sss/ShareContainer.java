@@ -0,0 +1,280 @@
+package sss;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+// Binary share container: the shares already decoded, so loading them needs no text
+// parsing and no base conversion.
+//
+// Layout, big-endian:
+//     0  magic "SSB1"
+//     4  version (1), flags (bit 0: may hold wrong shares, as the function format), 2 reserved
+//     8  n, k, share count
+//    20  CRC32C of bytes 0..19 and 24..end
+//    24  modulus length (0 without a prime), modulus as two's-complement bytes
+//        then per share: record length L, x, y as L - 4 two's-complement bytes
+// Files (conventionally *.shares) are memory-mapped; the checksum runs over the mapping and
+// every y goes straight from its bytes into a BigInteger. They are recognized by their magic
+// wherever a JSON document is accepted, except on stdin.
+//
+// Usage: java SecretSharing convert [--to=binary|assignment|function] [--bases=16|2,10,36|random]
+//            [--seed=S] INPUT OUTPUT
+// INPUT is a JSON document ("-" for stdin) or a container; OUTPUT ("-" for stdout) is written
+// in the --to format, by default a container for JSON input and the original JSON format for
+// a container. Stdout is kept for the data: progress output is off and the summary goes to
+// stderr.
+// Function-format expressions are evaluated on the way in; --bases picks the bases of
+// assignment-format values as for split.
+final class ShareContainer {
+
+    private static final int MAGIC = 0x53534231; // "SSB1"
+    private static final byte VERSION = 1;
+    private static final int FLAG_WRONG_SHARES = 1;
+    private static final int HEADER = 28;
+
+    private ShareContainer() {
+    }
+
+    // Whether the file starts with the container magic
+    static boolean isContainer(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // a short read only happens at end of file
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    static SecretSharing.SecretSharingInput read(Path path, Log log) throws IOException {
+        long start = System.nanoTime();
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Share container too large to map: " + path + " (" + size + " bytes)");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        Metrics.record(Metrics.Stage.READ, start);
+        return parse(buffer, path.toString(), log);
+    }
+
+    static SecretSharing.SecretSharingInput parse(ByteBuffer buffer, String name, Log log) throws IOException {
+        long start = System.nanoTime();
+        int size = buffer.limit();
+        if (size < HEADER || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a share container: " + name);
+        }
+        if (buffer.get(4) != VERSION) {
+            throw new IOException("Unsupported share container version " + buffer.get(4) + ": " + name);
+        }
+        if (buffer.getInt(20) != checksum(buffer)) {
+            throw new IOException("Corrupt share container, checksum mismatch: " + name);
+        }
+
+        SecretSharing.SecretSharingInput input = new SecretSharing.SecretSharingInput();
+        input.hasWrongShares = (buffer.get(5) & FLAG_WRONG_SHARES) != 0;
+        input.n = buffer.getInt(8);
+        input.k = buffer.getInt(12);
+        int count = buffer.getInt(16);
+        SecretSharing.validateNK(input.n, input.k);
+
+        int position = HEADER;
+        int modulusLength = buffer.getInt(24);
+        byte[] scratch = new byte[64];
+        if (modulusLength < 0 || modulusLength > size - position) {
+            throw new IOException("Corrupt share container, bad modulus length: " + name);
+        }
+        if (modulusLength > 0) {
+            scratch = Arrays.copyOf(scratch, Math.max(scratch.length, modulusLength));
+            buffer.get(position, scratch, 0, modulusLength);
+            input.modulus = new BigInteger(scratch, 0, modulusLength);
+            position += modulusLength;
+        }
+
+        if (count < 0 || count > (size - position) / 9) {
+            throw new IOException("Corrupt share container, bad share count: " + name);
+        }
+        input.decodedShares = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            int length = position + 8 <= size ? buffer.getInt(position) : -1;
+            if (length < 5 || length > size - position - 4) {
+                throw new IOException("Corrupt share container, bad record " + i + ": " + name);
+            }
+            int x = buffer.getInt(position + 4);
+            int yLength = length - 4;
+            if (yLength > scratch.length) {
+                scratch = new byte[Math.max(yLength, scratch.length * 2)];
+            }
+            buffer.get(position + 8, scratch, 0, yLength);
+            if (input.decodedShares.put(x, new BigInteger(scratch, 0, yLength)) != null) {
+                throw new IOException("Share " + x + " appears twice in " + name);
+            }
+            position += 4 + length;
+        }
+        if (position != size) {
+            throw new IOException("Corrupt share container, " + (size - position) + " bytes after the last share: " + name);
+        }
+        SecretSharing.requireEnoughShares(input);
+        Metrics.record(Metrics.Stage.PARSE, start);
+        if (log.verbose) {
+            log.info("Loaded share container: n=" + input.n + ", k=" + input.k + ", shares=" + count);
+        }
+        return input;
+    }
+
+    static void write(Path path, SecretSharing.SecretSharingInput input) throws IOException {
+        ByteBuffer buffer = encode(input);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static ByteBuffer encode(SecretSharing.SecretSharingInput input) throws IOException {
+        Map<Integer, BigInteger> shares = new TreeMap<>(input.decodedShares);
+        byte[] modulus = input.modulus == null ? new byte[0] : input.modulus.toByteArray();
+        byte[][] ys = new byte[shares.size()][];
+        long size = HEADER + modulus.length;
+        int index = 0;
+        for (BigInteger y : shares.values()) {
+            ys[index] = y.toByteArray();
+            size += 8 + ys[index].length;
+            index++;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Too many share bytes for one container (" + size + ")");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC).put(VERSION).put((byte) (input.hasWrongShares ? FLAG_WRONG_SHARES : 0)).putShort((short) 0);
+        buffer.putInt(input.n).putInt(input.k).putInt(shares.size()).putInt(0);
+        buffer.putInt(modulus.length).put(modulus);
+        index = 0;
+        for (int x : shares.keySet()) {
+            buffer.putInt(4 + ys[index].length).putInt(x).put(ys[index]);
+            index++;
+        }
+        buffer.putInt(20, checksum(buffer));
+        buffer.flip();
+        return buffer;
+    }
+
+    // CRC32C of the whole container except the checksum field itself
+    private static int checksum(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(0).limit(20));
+        crc.update(buffer.duplicate().position(24));
+        return (int) crc.getValue();
+    }
+
+    // Any share document as decoded shares: a container as it is, JSON parsed and evaluated
+    static SecretSharing.SecretSharingInput load(String filename, Log log) throws IOException {
+        if (!filename.equals(ShareInput.STDIN) && isContainer(Paths.get(filename))) {
+            return read(Paths.get(filename), log);
+        }
+        SecretSharing.SecretSharingInput input = SecretSharing.parseJSON(ShareInput.read(filename), log);
+        if (input.decodedShares == null) {
+            long start = System.nanoTime();
+            input.decodedShares = SecretSharing.decodeShares(input.shares, log);
+            Metrics.record(Metrics.Stage.DECODE, start);
+        }
+        return input;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String to = null;
+        String bases = "10";
+        Long seed = null;
+        List<String> files = new ArrayList<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String name = equals < 0 || !arg.startsWith("--") ? arg : arg.substring(0, equals);
+            String value = equals < 0 ? "" : arg.substring(equals + 1);
+            switch (name) {
+                case "--to":
+                    to = value;
+                    break;
+                case "--bases":
+                    bases = value;
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                default:
+                    if (name.startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    }
+                    files.add(arg);
+            }
+        }
+        if (files.size() != 2) {
+            throw new IllegalArgumentException("convert needs an input and an output file");
+        }
+        if (to != null && !to.equals("binary") && !to.equals("assignment") && !to.equals("function")) {
+            throw new IllegalArgumentException("Unknown format '" + to + "', expected binary, assignment or function");
+        }
+
+        boolean fromContainer = !files.get(0).equals(ShareInput.STDIN) && isContainer(Paths.get(files.get(0)));
+        SecretSharing.SecretSharingInput input = load(files.get(0), Log.QUIET);
+        if (to == null) {
+            to = !fromContainer ? "binary" : input.hasWrongShares ? "function" : "assignment";
+        }
+        long start = System.nanoTime();
+        boolean toStdout = files.get(1).equals("-");
+        Path output = Paths.get(files.get(1));
+        if (to.equals("binary")) {
+            if (toStdout) {
+                ByteBuffer buffer = encode(input);
+                System.out.write(buffer.array(), 0, buffer.limit());
+                System.out.flush();
+            } else {
+                write(output, input);
+            }
+        } else {
+            ShareSetGenerator.Format format = ShareSetGenerator.Format.fromName(to);
+            input.hasWrongShares = format == ShareSetGenerator.Format.FUNCTION;
+            int[] shareBases = ShareSplitter.bases(bases, input.decodedShares.size(),
+                    seed == null ? new SecureRandom() : new Random(seed));
+            try (Writer out = toStdout
+                    ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)
+                    : Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                writeJson(out, input, format, shareBases);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (toStdout) {
+            System.err.printf("Wrote %d shares to stdout (%s) in %.2f s%n", input.decodedShares.size(), to, seconds);
+        } else {
+            System.err.printf("Wrote %d shares to %s (%s, %d bytes) in %.2f s%n",
+                    input.decodedShares.size(), output, to, Files.size(output), seconds);
+        }
+    }
+
+    private static void writeJson(Writer out, SecretSharing.SecretSharingInput input, ShareSetGenerator.Format format,
+                                  int[] bases) throws IOException {
+        ShareSplitter.writeHeader(out, input.n, input.k, input.modulus, format);
+        StringBuilder sb = new StringBuilder();
+        int index = 0;
+        for (Map.Entry<Integer, BigInteger> share : new TreeMap<>(input.decodedShares).entrySet()) {
+            sb.setLength(0);
+            ShareSplitter.appendShare(sb, share.getKey(), share.getValue(), format, bases[index++]);
+            out.write(sb.toString());
+        }
+        out.write("\n}\n");
+    }
+}
@@ -0,0 +1,305 @@
+package sss;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Compiler for function-format share values such as "sum(multiply(2, 3), 4)".
+//
+//     expression := number | name '(' expression (',' expression)* ')'
+//     number     := ['+' | '-'] digit+
+//
+// A recursive-descent parser turns the text into a small tree of literals and calls,
+// which is then folded to a BigInteger. sum, multiply (mul), subtract (sub), divide
+// (div), lcm and gcd (hcf) take any number of arguments and fold left to right. Errors
+// are returned as values rather than thrown, and plain numbers never reach the parser's
+// error paths, so bad shares cost no more than good ones. Expressions are constant, so
+// each distinct expression text is compiled and evaluated once and the outcome cached
+// for every later document that repeats it.
+final class ShareExpressions {
+
+    // Outcomes kept before the cache starts over; batches rarely repeat more distinct texts
+    private static final int CACHE_LIMIT = 1 << 16;
+
+    // Deeper nesting is rejected instead of risking the parser's stack
+    private static final int MAX_DEPTH = 256;
+
+    private static final ConcurrentHashMap<String, Value> CACHE = new ConcurrentHashMap<>();
+
+    private ShareExpressions() {
+    }
+
+    // Either the value of an expression or the reason it has none
+    static final class Value {
+        final BigInteger value;
+        final String error;
+
+        private Value(BigInteger value, String error) {
+            this.value = value;
+            this.error = error;
+        }
+    }
+
+    static Value evaluate(String expression) {
+        // Plain numbers are the common case and are cheaper to parse than to look up
+        BigInteger number = parseNumber(expression);
+        if (number != null) {
+            return new Value(number, null);
+        }
+        Value cached = CACHE.get(expression);
+        if (cached == null) {
+            cached = compileAndEvaluate(expression);
+            if (CACHE.size() >= CACHE_LIMIT) {
+                CACHE.clear();
+            }
+            CACHE.put(expression, cached);
+        }
+        return cached;
+    }
+
+    private static Value compileAndEvaluate(String expression) {
+        Parser parser = new Parser(expression);
+        Node root = parser.parseExpression();
+        if (root != null) {
+            parser.skipSpaces();
+            if (parser.position < expression.length()) {
+                parser.fail("unexpected '" + expression.charAt(parser.position) + "'");
+                root = null;
+            }
+        }
+        if (root == null) {
+            return new Value(null, "Invalid expression '" + expression + "': " + parser.error + " at offset " + parser.errorPosition);
+        }
+        BigInteger value = root.evaluate();
+        if (value == null) {
+            return new Value(null, "Division by zero in '" + expression + "'");
+        }
+        return new Value(value, null);
+    }
+
+    // The whole string as an optionally signed decimal number, or null if it is anything else
+    private static BigInteger parseNumber(String text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        int digits = start < end && (text.charAt(start) == '-' || text.charAt(start) == '+') ? start + 1 : start;
+        if (digits == end) {
+            return null;
+        }
+        for (int i = digits; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+        }
+        return RadixConversion.parse(start == 0 && end == text.length() ? text : text.substring(start, end), 10);
+    }
+
+    private enum Operation {
+        SUM(1),
+        MULTIPLY(1),
+        SUBTRACT(2),
+        DIVIDE(2),
+        LCM(2),
+        GCD(2);
+
+        final int minimumArguments;
+
+        Operation(int minimumArguments) {
+            this.minimumArguments = minimumArguments;
+        }
+
+        static Operation fromName(String name) {
+            switch (name) {
+                case "sum":
+                    return SUM;
+                case "multiply":
+                case "mul":
+                    return MULTIPLY;
+                case "subtract":
+                case "sub":
+                    return SUBTRACT;
+                case "divide":
+                case "div":
+                    return DIVIDE;
+                case "lcm":
+                    return LCM;
+                case "gcd":
+                case "hcf":
+                    return GCD;
+                default:
+                    return null;
+            }
+        }
+
+        // null for a division by zero
+        BigInteger apply(BigInteger left, BigInteger right) {
+            switch (this) {
+                case SUM:
+                    return left.add(right);
+                case MULTIPLY:
+                    return left.multiply(right);
+                case SUBTRACT:
+                    return left.subtract(right);
+                case DIVIDE:
+                    return right.signum() == 0 ? null : left.divide(right);
+                case LCM:
+                    return left.signum() == 0 || right.signum() == 0
+                            ? BigInteger.ZERO
+                            : left.multiply(right).divide(left.gcd(right));
+                default:
+                    return left.gcd(right);
+            }
+        }
+    }
+
+    private abstract static class Node {
+        // null if some division inside the tree is by zero
+        abstract BigInteger evaluate();
+    }
+
+    private static final class Literal extends Node {
+        private final BigInteger value;
+
+        Literal(BigInteger value) {
+            this.value = value;
+        }
+
+        @Override
+        BigInteger evaluate() {
+            return value;
+        }
+    }
+
+    private static final class Call extends Node {
+        private final Operation operation;
+        private final Node[] arguments;
+
+        Call(Operation operation, Node[] arguments) {
+            this.operation = operation;
+            this.arguments = arguments;
+        }
+
+        @Override
+        BigInteger evaluate() {
+            BigInteger result = arguments[0].evaluate();
+            for (int i = 1; i < arguments.length && result != null; i++) {
+                BigInteger argument = arguments[i].evaluate();
+                result = argument == null ? null : operation.apply(result, argument);
+            }
+            return result;
+        }
+    }
+
+    // Every parse method returns null after recording the first error
+    private static final class Parser {
+        private final String text;
+        private int position;
+        private int depth;
+        private String error;
+        private int errorPosition;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Node parseExpression() {
+            skipSpaces();
+            if (position == text.length()) {
+                return fail("expected a number or a function call");
+            }
+            char c = text.charAt(position);
+            if (c == '+' || c == '-' || (c >= '0' && c <= '9')) {
+                return parseLiteral();
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                return parseCall();
+            }
+            return fail("unexpected '" + c + "'");
+        }
+
+        private Node parseLiteral() {
+            int start = position;
+            if (text.charAt(position) == '+' || text.charAt(position) == '-') {
+                position++;
+            }
+            int digits = position;
+            while (position < text.length() && text.charAt(position) >= '0' && text.charAt(position) <= '9') {
+                position++;
+            }
+            if (position == digits) {
+                return fail("expected digits");
+            }
+            return new Literal(RadixConversion.parse(text.substring(start, position), 10));
+        }
+
+        private Node parseCall() {
+            int start = position;
+            while (position < text.length() && Character.isLetter(text.charAt(position))) {
+                position++;
+            }
+            String name = text.substring(start, position);
+            Operation operation = Operation.fromName(name);
+            skipSpaces();
+            if (operation == null) {
+                boolean call = position < text.length() && text.charAt(position) == '(';
+                position = start;
+                return fail(call ? "unknown function '" + name + "'" : "expected a number, found '" + name + "'");
+            }
+            if (position == text.length() || text.charAt(position) != '(') {
+                return fail("expected '(' after " + name);
+            }
+            position++;
+            if (++depth > MAX_DEPTH) {
+                return fail("nested more than " + MAX_DEPTH + " calls deep");
+            }
+
+            Node[] arguments = new Node[4];
+            int count = 0;
+            while (true) {
+                Node argument = parseExpression();
+                if (argument == null) {
+                    return null;
+                }
+                if (count == arguments.length) {
+                    arguments = Arrays.copyOf(arguments, count * 2);
+                }
+                arguments[count++] = argument;
+                skipSpaces();
+                if (position < text.length() && text.charAt(position) == ',') {
+                    position++;
+                } else if (position < text.length() && text.charAt(position) == ')') {
+                    position++;
+                    break;
+                } else {
+                    return fail("expected ',' or ')'");
+                }
+            }
+            depth--;
+            if (count < operation.minimumArguments) {
+                position = start;
+                return fail(name + "() needs at least " + operation.minimumArguments + " arguments");
+            }
+            return new Call(operation, count == arguments.length ? arguments : Arrays.copyOf(arguments, count));
+        }
+
+        void skipSpaces() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        Node fail(String message) {
+            if (error == null) {
+                error = message;
+                errorPosition = position;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package sss;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.*;
+
+// NIO input layer for share documents.
+//
+// Regular files are memory-mapped and handed to the tokenizer as a byte-backed
+// CharSequence, so the document is never copied into a String first. Stdin ("-")
+// and pipes, which cannot be mapped, are drained into a single growing ByteBuffer.
+final class ShareInput {
+
+    static final String STDIN = "-";
+
+    private static final int STREAM_CHUNK = 64 * 1024;
+
+    private ShareInput() {
+    }
+
+    static CharSequence read(String filename) throws IOException {
+        long start = System.nanoTime();
+        CharSequence document = open(filename);
+        Metrics.record(Metrics.Stage.READ, start);
+        return document;
+    }
+
+    private static CharSequence open(String filename) throws IOException {
+        if (STDIN.equals(filename)) {
+            return new ByteCharSequence(drain(Channels.newChannel(System.in)));
+        }
+        Path path = Paths.get(filename);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (!Files.isRegularFile(path)) {
+                // Named pipes, /dev/stdin and friends report no usable size
+                return new ByteCharSequence(drain(channel));
+            }
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Input file too large to map: " + filename + " (" + size + " bytes)");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new ByteCharSequence(buffer);
+        }
+    }
+
+    private static ByteBuffer drain(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(STREAM_CHUNK);
+        while (channel.read(buffer) >= 0) {
+            if (!buffer.hasRemaining()) {
+                if (buffer.capacity() > Integer.MAX_VALUE / 2) {
+                    throw new IOException("Input stream too large");
+                }
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // Read-only view of an ASCII/Latin-1 byte buffer as characters.
+    // Share documents are ASCII apart from an optional BOM, which the tokenizer skips.
+    static final class ByteCharSequence implements CharSequence {
+        private final ByteBuffer bytes;
+        private final int offset;
+        private final int length;
+
+        ByteCharSequence(ByteBuffer bytes) {
+            this(bytes, bytes.position(), bytes.remaining());
+        }
+
+        private ByteCharSequence(ByteBuffer bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+            }
+            return (char) (bytes.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+            }
+            return new ByteCharSequence(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            byte[] copy = new byte[length];
+            bytes.get(offset, copy);
+            return new String(copy, java.nio.charset.StandardCharsets.ISO_8859_1);
+        }
+    }
+}
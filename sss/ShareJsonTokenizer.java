@@ -0,0 +1,586 @@
+package sss;
+
+import java.math.BigInteger;
+import java.util.*;
+
+// Single-pass JSON reader for share documents.
+//
+// Walks the input once, picks the format from its structure (share values that
+// are {"base", "value"} objects mean assignment format, plain strings mean function
+// format) and fills SecretSharingInput directly, without regexes or substring copies.
+final class ShareJsonTokenizer {
+
+    private final CharSequence json;
+    private final int length;
+    private int pos;
+
+    // n/k as found inside "keys" and at the top level
+    private int keysN = -1;
+    private int keysK = -1;
+    private int topN = -1;
+    private int topK = -1;
+
+    // Optional field prime, as written in the document
+    private String modulus;
+
+    // Assignment-format shares, kept raw until n/k have been validated
+    private int objectCount;
+    private int[] objectKeys = new int[16];
+    private int[] objectBases = new int[16];
+    private String[] objectValues = new String[16];
+
+    // Function-format shares
+    private Map<Integer, String> stringShares;
+
+    // Time spent converting assignment values, which counts as decoding rather than parsing
+    private long decodeNanos;
+
+    // Warnings about skipped shares and the per-share progress of a whole document
+    private final Log log;
+
+    private ShareJsonTokenizer(CharSequence json, Log log) {
+        this.json = json;
+        this.length = json.length();
+        this.log = log;
+    }
+
+    static SecretSharing.SecretSharingInput parse(CharSequence json, Log log) {
+        long start = System.nanoTime();
+        ShareJsonTokenizer tokenizer = new ShareJsonTokenizer(json, log);
+        SecretSharing.SecretSharingInput input = tokenizer.parseDocument();
+        Metrics.Stage.PARSE.histogram.record(System.nanoTime() - start - tokenizer.decodeNanos);
+        return input;
+    }
+
+    // One line of a share stream: any top-level members of a share document (n, k, keys,
+    // prime, and shares in either format) without the whole-document checks. n and k are
+    // -1 when absent; a share that cannot be used is an error rather than a warning.
+    static SecretSharing.SecretSharingInput parseFragment(CharSequence json) {
+        ShareJsonTokenizer tokenizer = new ShareJsonTokenizer(json, Log.QUIET);
+        tokenizer.scanMembers();
+        return tokenizer.finishFragment();
+    }
+
+    private SecretSharing.SecretSharingInput parseDocument() {
+        scanMembers();
+
+        SecretSharing.SecretSharingInput input = new SecretSharing.SecretSharingInput();
+        if (modulus != null) {
+            input.modulus = PrimeField.parseModulus(modulus);
+        }
+        boolean isAssignmentFormat = objectCount > 0 || (stringShares == null && keysN >= 0);
+        if (isAssignmentFormat) {
+            finishAssignmentFormat(input);
+            input.hasWrongShares = false; // Assignment assumes all shares are valid
+        } else {
+            finishFunctionFormat(input);
+            input.hasWrongShares = true; // Function format may have wrong shares
+        }
+        return input;
+    }
+
+    private void scanMembers() {
+        // Skip BOM, whitespace and any other junk before the opening brace
+        while (pos < length && json.charAt(pos) != '{') {
+            pos++;
+        }
+        if (pos == length) {
+            throw new IllegalArgumentException("Malformed JSON: no opening '{' found");
+        }
+        pos++;
+
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+        } else {
+            while (true) {
+                parseTopLevelMember();
+                skipWhitespace();
+                char c = next();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw error("expected ',' or '}'");
+                }
+            }
+        }
+    }
+
+    private void parseTopLevelMember() {
+        skipWhitespace();
+        expect('"');
+        int keyStart = pos;
+        int shareKey = scanKey();
+        int keyEnd = pos - 1;
+        skipWhitespace();
+        expect(':');
+        skipWhitespace();
+
+        if (shareKey >= 0) {
+            char c = peek();
+            if (c == '{') {
+                parseShareObject(shareKey);
+            } else if (c == '"') {
+                pos++;
+                String value = scanString();
+                if (stringShares == null) {
+                    stringShares = new HashMap<>();
+                }
+                stringShares.put(shareKey, value);
+            } else {
+                skipValue();
+            }
+        } else if (keyEquals(keyStart, keyEnd, "keys") && peek() == '{') {
+            parseKeysObject();
+        } else if (keyEquals(keyStart, keyEnd, "n")) {
+            topN = parseIntValue("n");
+        } else if (keyEquals(keyStart, keyEnd, "k")) {
+            topK = parseIntValue("k");
+        } else if (keyEquals(keyStart, keyEnd, "prime") || keyEquals(keyStart, keyEnd, "modulus")) {
+            modulus = scanScalar();
+        } else {
+            skipValue();
+        }
+    }
+
+    private void parseKeysObject() {
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            expect('"');
+            int keyStart = pos;
+            skipStringBody();
+            int keyEnd = pos - 1;
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if (keyEquals(keyStart, keyEnd, "n")) {
+                keysN = parseIntValue("n");
+            } else if (keyEquals(keyStart, keyEnd, "k")) {
+                keysK = parseIntValue("k");
+            } else if (keyEquals(keyStart, keyEnd, "prime") || keyEquals(keyStart, keyEnd, "modulus")) {
+                modulus = scanScalar();
+            } else {
+                skipValue();
+            }
+            skipWhitespace();
+            char c = next();
+            if (c == '}') {
+                return;
+            }
+            if (c != ',') {
+                throw error("expected ',' or '}'");
+            }
+        }
+    }
+
+    // Parses {"base": "10", "value": "4"} for the given share key
+    private void parseShareObject(int shareKey) {
+        expect('{');
+        int base = -1;
+        String value = null;
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+        } else {
+            while (true) {
+                skipWhitespace();
+                expect('"');
+                int keyStart = pos;
+                skipStringBody();
+                int keyEnd = pos - 1;
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                if (keyEquals(keyStart, keyEnd, "base")) {
+                    base = parseIntValue("base");
+                } else if (keyEquals(keyStart, keyEnd, "value") && peek() == '"') {
+                    pos++;
+                    value = scanString();
+                } else {
+                    skipValue();
+                }
+                skipWhitespace();
+                char c = next();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw error("expected ',' or '}'");
+                }
+            }
+        }
+
+        if (base < 0 || value == null || value.isEmpty()) {
+            // Not a share object; the regex parser ignored these as well
+            return;
+        }
+        if (objectCount == objectKeys.length) {
+            int capacity = objectCount * 2;
+            objectKeys = Arrays.copyOf(objectKeys, capacity);
+            objectBases = Arrays.copyOf(objectBases, capacity);
+            objectValues = Arrays.copyOf(objectValues, capacity);
+        }
+        objectKeys[objectCount] = shareKey;
+        objectBases[objectCount] = base;
+        objectValues[objectCount] = value;
+        objectCount++;
+    }
+
+    private void finishAssignmentFormat(SecretSharing.SecretSharingInput input) {
+        if (keysN < 0) {
+            throw new IllegalArgumentException("Missing 'n' value in keys");
+        }
+        if (keysK < 0) {
+            throw new IllegalArgumentException("Missing 'k' value in keys");
+        }
+        input.n = keysN;
+        input.k = keysK;
+        SecretSharing.validateNK(input.n, input.k);
+
+        // Only the converted values are kept; decimal strings are formatted just for the log
+        long decodeStart = System.nanoTime();
+        input.decodedShares = new HashMap<>();
+        for (int i = 0; i < objectCount; i++) {
+            int key = objectKeys[i];
+            int base = objectBases[i];
+            String value = objectValues[i];
+
+            if (key <= 0) {
+                if (log.verbose) {
+                    log.warn("Warning: Invalid share key " + key + " (must be positive), skipping...");
+                }
+                continue;
+            }
+            if (base < 2 || base > 36) {
+                if (log.verbose) {
+                    log.warn("Warning: Invalid base " + base + " for share " + key + ", skipping...");
+                }
+                continue;
+            }
+
+            try {
+                BigInteger decimalValue = RadixConversion.parse(value, base);
+                input.decodedShares.put(key, decimalValue);
+                if (log.verbose) {
+                    log.info("Share " + key + ": base " + base + " value '" + value + "' = " + RadixConversion.toString(decimalValue, 10));
+                }
+            } catch (NumberFormatException e) {
+                if (log.verbose) {
+                    log.warn("Error decoding share " + key + ": Invalid number '" + value + "' in base " + base);
+                }
+            }
+        }
+        decodeNanos = System.nanoTime() - decodeStart;
+        Metrics.Stage.DECODE.histogram.record(decodeNanos);
+
+        SecretSharing.requireEnoughShares(input);
+        if (log.verbose) {
+            log.info("Successfully parsed assignment format JSON: n=" + input.n + ", k=" + input.k + ", shares=" + input.decodedShares.size());
+        }
+    }
+
+    private void finishFunctionFormat(SecretSharing.SecretSharingInput input) {
+        // The function format usually has n/k at the top level, but accept them from "keys" too
+        input.n = topN >= 0 ? topN : keysN;
+        input.k = topK >= 0 ? topK : keysK;
+        if (input.n < 0) {
+            throw new IllegalArgumentException("Missing or invalid 'n' value in JSON");
+        }
+        if (input.k < 0) {
+            throw new IllegalArgumentException("Missing or invalid 'k' value in JSON");
+        }
+        SecretSharing.validateNK(input.n, input.k);
+
+        input.shares = new HashMap<>();
+        if (stringShares != null) {
+            for (Map.Entry<Integer, String> entry : stringShares.entrySet()) {
+                if (entry.getKey() <= 0) {
+                    if (log.verbose) {
+                        log.warn("Warning: Invalid share key " + entry.getKey() + " (must be positive), skipping...");
+                    }
+                    continue;
+                }
+                input.shares.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        SecretSharing.requireEnoughShares(input);
+        if (log.verbose) {
+            log.info("Successfully parsed function format JSON: n=" + input.n + ", k=" + input.k + ", shares=" + input.shares.size());
+        }
+    }
+
+    private SecretSharing.SecretSharingInput finishFragment() {
+        SecretSharing.SecretSharingInput input = new SecretSharing.SecretSharingInput();
+        input.n = topN >= 0 ? topN : keysN;
+        input.k = topK >= 0 ? topK : keysK;
+        if (modulus != null) {
+            input.modulus = PrimeField.parseModulus(modulus);
+        }
+        input.decodedShares = new HashMap<>();
+        for (int i = 0; i < objectCount; i++) {
+            int key = objectKeys[i];
+            int base = objectBases[i];
+            String value = objectValues[i];
+            if (key <= 0) {
+                throw new IllegalArgumentException("Invalid share key " + key + " (must be positive)");
+            }
+            if (base < 2 || base > 36) {
+                throw new IllegalArgumentException("Invalid base " + base + " for share " + key);
+            }
+            try {
+                input.decodedShares.put(key, RadixConversion.parse(value, base));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number '" + value + "' in base " + base + " for share " + key);
+            }
+        }
+        input.shares = new HashMap<>();
+        if (stringShares != null) {
+            for (Map.Entry<Integer, String> entry : stringShares.entrySet()) {
+                if (entry.getKey() <= 0) {
+                    throw new IllegalArgumentException("Invalid share key " + entry.getKey() + " (must be positive)");
+                }
+                input.shares.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return input;
+    }
+
+    // Scans the rest of an object key; returns its value if it is all digits, -1 otherwise
+    private int scanKey() {
+        long value = 0;
+        boolean numeric = true;
+        int digits = 0;
+        while (true) {
+            if (pos >= length) {
+                throw error("unterminated string");
+            }
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                break;
+            }
+            if (c == '\\') {
+                numeric = false;
+                if (pos >= length) {
+                    throw error("unterminated string");
+                }
+                pos++;
+                continue;
+            }
+            if (numeric && c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                digits++;
+                if (value > Integer.MAX_VALUE) {
+                    throw error("share key out of range");
+                }
+            } else {
+                numeric = false;
+            }
+        }
+        return numeric && digits > 0 ? (int) value : -1;
+    }
+
+    // Reads an integer given either as a JSON number or as a quoted string of digits
+    private int parseIntValue(String name) {
+        boolean quoted = peek() == '"';
+        if (quoted) {
+            pos++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (pos < length) {
+            char c = json.charAt(pos);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw error("'" + name + "' out of range");
+            }
+            digits++;
+            pos++;
+        }
+        if (digits == 0) {
+            throw error("invalid '" + name + "' value");
+        }
+        if (quoted) {
+            expect('"');
+        }
+        return (int) value;
+    }
+
+    // Reads a string, or the raw text of a number, as a String
+    private String scanScalar() {
+        if (peek() == '"') {
+            pos++;
+            return scanString();
+        }
+        int start = pos;
+        skipValue();
+        return json.subSequence(start, pos).toString();
+    }
+
+    // Reads the body of a string whose opening quote has been consumed
+    private String scanString() {
+        int start = pos;
+        while (pos < length) {
+            char c = json.charAt(pos);
+            if (c == '"') {
+                String s = json.subSequence(start, pos).toString();
+                pos++;
+                return s;
+            }
+            if (c == '\\') {
+                return scanEscapedString(start);
+            }
+            pos++;
+        }
+        throw error("unterminated string");
+    }
+
+    private String scanEscapedString(int start) {
+        StringBuilder sb = new StringBuilder(pos - start + 16);
+        sb.append(json, start, pos);
+        while (pos < length) {
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= length) {
+                break;
+            }
+            char e = json.charAt(pos++);
+            switch (e) {
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > length) {
+                        throw error("truncated unicode escape");
+                    }
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(json.charAt(pos++), 16);
+                        if (digit < 0) {
+                            throw error("invalid unicode escape");
+                        }
+                        code = (code << 4) | digit;
+                    }
+                    sb.append((char) code);
+                    break;
+                default: sb.append(e);
+            }
+        }
+        throw error("unterminated string");
+    }
+
+    private void skipStringBody() {
+        while (pos < length) {
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                pos++;
+            }
+        }
+        throw error("unterminated string");
+    }
+
+    // Skips any JSON value (including nested objects and arrays) without materialising it
+    private void skipValue() {
+        char c = peek();
+        if (c == '"') {
+            pos++;
+            skipStringBody();
+            return;
+        }
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            while (pos < length) {
+                char d = json.charAt(pos++);
+                if (d == '"') {
+                    skipStringBody();
+                } else if (d == '{' || d == '[') {
+                    depth++;
+                } else if (d == '}' || d == ']') {
+                    if (--depth == 0) {
+                        return;
+                    }
+                }
+            }
+            throw error("unterminated value");
+        }
+        // Number, true, false or null
+        int start = pos;
+        while (pos < length) {
+            char d = json.charAt(pos);
+            if (d == ',' || d == '}' || d == ']' || Character.isWhitespace(d)) {
+                break;
+            }
+            pos++;
+        }
+        if (pos == start) {
+            throw error("expected a value");
+        }
+    }
+
+    private boolean keyEquals(int start, int end, String name) {
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (json.charAt(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (pos < length) {
+            char c = json.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private char peek() {
+        if (pos >= length) {
+            throw error("unexpected end of input");
+        }
+        return json.charAt(pos);
+    }
+
+    private char next() {
+        char c = peek();
+        pos++;
+        return c;
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            pos--;
+            throw error("expected '" + expected + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Malformed JSON at offset " + pos + ": " + message);
+    }
+}
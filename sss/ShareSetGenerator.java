@@ -0,0 +1,208 @@
+package sss;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Reproducible share-set documents for benchmarks, batch runs and regression checks.
+//
+// A share set is determined by (n, k, coefficient bits, corrupted shares, seed), and its
+// document additionally by the format and, for the assignment format, the base of the
+// values; the same parameters always give the same bytes.
+//
+// Usage: java sss.ShareSetGenerator [--n=10] [--k=5] [--bits=128] [--base=16] [--corrupted=0]
+//            [--format=assignment|function] [--seed=1] [--count=1] [--out=DIR|FILE.ndjson]
+// Writes `count` documents with seeds seed, seed+1, .. into DIR (one file each) or into an
+// NDJSON file (one line each), and prints every document name with its expected secret.
+final class ShareSetGenerator {
+
+    enum Format {
+        ASSIGNMENT, // {"keys": {"n", "k"}, "x": {"base", "value"}}
+        FUNCTION;   // {"n", "k", "x": "<number or sum(a, b)>"}, voted on by findSecret
+
+        static Format fromName(String name) {
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "assignment":
+                    return ASSIGNMENT;
+                case "function":
+                    return FUNCTION;
+                default:
+                    throw new IllegalArgumentException("Unknown format '" + name + "', expected assignment or function");
+            }
+        }
+    }
+
+    // Shares x = 1..n of a random degree-(k-1) polynomial whose constant term is the secret
+    static final class ShareSet {
+        final int k;
+        final BigInteger secret;
+        final Map<Integer, BigInteger> shares;
+        final Set<Integer> corrupted;
+
+        ShareSet(int k, BigInteger secret, Map<Integer, BigInteger> shares, Set<Integer> corrupted) {
+            this.k = k;
+            this.secret = secret;
+            this.shares = shares;
+            this.corrupted = corrupted;
+        }
+    }
+
+    private ShareSetGenerator() {
+    }
+
+    // The first `corrupted` x's (after a seeded shuffle) are shifted off the polynomial
+    static ShareSet generate(int n, int k, int coefficientBits, int corrupted, long seed) {
+        if (k < 1 || k > n || corrupted < 0 || corrupted > n) {
+            throw new IllegalArgumentException("Cannot generate n = " + n + ", k = " + k + " with " + corrupted + " corrupted shares");
+        }
+        Random random = new Random(seed);
+        BigInteger[] coefficients = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            coefficients[i] = new BigInteger(coefficientBits, random);
+        }
+        List<Integer> xs = new ArrayList<>();
+        for (int x = 1; x <= n; x++) {
+            xs.add(x);
+        }
+        Collections.shuffle(xs, random);
+        Set<Integer> wrong = new TreeSet<>(xs.subList(0, corrupted));
+
+        Map<Integer, BigInteger> shares = new TreeMap<>();
+        for (int x = 1; x <= n; x++) {
+            BigInteger y = BigInteger.ZERO;
+            BigInteger point = BigInteger.valueOf(x);
+            for (int i = k - 1; i >= 0; i--) {
+                y = y.multiply(point).add(coefficients[i]);
+            }
+            if (wrong.contains(x)) {
+                y = y.add(BigInteger.ONE.add(new BigInteger(coefficientBits, random)));
+            }
+            shares.put(x, y);
+        }
+        return new ShareSet(k, coefficients[0], shares, wrong);
+    }
+
+    // Pretty-printed like the sample inputs; compact puts the whole document on one line
+    static String document(ShareSet set, Format format, int base, long seed, boolean compact) {
+        if (base < Character.MIN_RADIX || base > Character.MAX_RADIX) {
+            throw new IllegalArgumentException("Base must be between 2 and 36");
+        }
+        String newline = compact ? "" : "\n";
+        String indent = compact ? "" : "    ";
+        String space = compact ? "" : " ";
+        StringBuilder sb = new StringBuilder();
+        sb.append('{').append(newline);
+        if (format == Format.ASSIGNMENT) {
+            sb.append(indent).append("\"keys\":").append(space).append('{').append(newline)
+              .append(indent).append(indent).append("\"n\":").append(space).append(set.shares.size()).append(',').append(newline)
+              .append(indent).append(indent).append("\"k\":").append(space).append(set.k).append(newline)
+              .append(indent).append('}');
+            for (Map.Entry<Integer, BigInteger> share : set.shares.entrySet()) {
+                sb.append(',').append(newline)
+                  .append(indent).append('"').append(share.getKey()).append("\":").append(space).append('{').append(newline)
+                  .append(indent).append(indent).append("\"base\":").append(space).append('"').append(base).append("\",").append(newline)
+                  .append(indent).append(indent).append("\"value\":").append(space).append('"').append(RadixConversion.toString(share.getValue(), base)).append('"').append(newline)
+                  .append(indent).append('}');
+            }
+        } else {
+            // Every other share is written as a sum, so decoding goes through the expression evaluator
+            Random random = new Random(seed);
+            sb.append(indent).append("\"n\":").append(space).append(set.shares.size()).append(',').append(newline)
+              .append(indent).append("\"k\":").append(space).append(set.k);
+            for (Map.Entry<Integer, BigInteger> share : set.shares.entrySet()) {
+                BigInteger y = share.getValue();
+                sb.append(',').append(newline).append(indent).append('"').append(share.getKey()).append("\":").append(space).append('"');
+                if (random.nextBoolean() && y.signum() > 0) {
+                    BigInteger part = new BigInteger(y.bitLength(), random).mod(y);
+                    sb.append("sum(").append(RadixConversion.toString(part, 10)).append(", ")
+                      .append(RadixConversion.toString(y.subtract(part), 10)).append(')');
+                } else {
+                    sb.append(RadixConversion.toString(y, 10));
+                }
+                sb.append('"');
+            }
+        }
+        return sb.append(newline).append('}').append(newline).toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int n = 10;
+        int k = 5;
+        int bits = 128;
+        int base = 16;
+        int corrupted = 0;
+        Format format = Format.ASSIGNMENT;
+        long seed = 1;
+        int count = 1;
+        String out = null;
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String name = equals < 0 ? arg : arg.substring(0, equals);
+            String value = equals < 0 ? "" : arg.substring(equals + 1);
+            switch (name) {
+                case "--n":
+                    n = Integer.parseInt(value);
+                    break;
+                case "--k":
+                    k = Integer.parseInt(value);
+                    break;
+                case "--bits":
+                    bits = Integer.parseInt(value);
+                    break;
+                case "--base":
+                    base = Integer.parseInt(value);
+                    break;
+                case "--corrupted":
+                    corrupted = Integer.parseInt(value);
+                    break;
+                case "--format":
+                    format = Format.fromName(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--count":
+                    count = Integer.parseInt(value);
+                    break;
+                case "--out":
+                    out = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        boolean ndjson = out != null && (out.endsWith(".ndjson") || out.endsWith(".jsonl"));
+        Path directory = out == null ? Paths.get(".") : Paths.get(out);
+        Writer lines = null;
+        if (ndjson) {
+            lines = Files.newBufferedWriter(directory, StandardCharsets.UTF_8);
+        } else {
+            Files.createDirectories(directory);
+        }
+        try {
+            for (int i = 0; i < count; i++) {
+                long documentSeed = seed + i;
+                ShareSet set = generate(n, k, bits, corrupted, documentSeed);
+                String name;
+                if (ndjson) {
+                    lines.write(document(set, format, base, documentSeed, true));
+                    lines.write('\n');
+                    name = out + ":" + (i + 1);
+                } else {
+                    Path file = directory.resolve(String.format("shares-n%d-k%d-b%d-%s-s%d.json",
+                            n, k, bits, format.name().toLowerCase(Locale.ROOT), documentSeed));
+                    Files.write(file, document(set, format, base, documentSeed, false).getBytes(StandardCharsets.UTF_8));
+                    name = file.toString();
+                }
+                System.out.println(name + " " + set.secret);
+            }
+        } finally {
+            if (lines != null) {
+                lines.close();
+            }
+        }
+    }
+}
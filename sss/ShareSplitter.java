@@ -0,0 +1,217 @@
+package sss;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Share generation: splits a secret into n shares, any k of which recover it.
+//
+// A random polynomial of degree k - 1 with the secret as constant term is evaluated at
+// x = 1..n with MultipointEvaluation, and the shares are written as a document in the
+// assignment format (each value in its own base) or the function format (decimal values).
+// Points are evaluated and formatted chunk by chunk on a thread pool; chunks are written in
+// order as they complete, so memory stays bounded by the chunks in flight.
+//
+// Usage: java SecretSharing split --secret=S --n=N --k=K [--prime=P] [--bits=B]
+//            [--format=assignment|function] [--bases=16|2,10,36|random] [--seed=S]
+//            [--parallelism=T] [--out=FILE]
+// Without --prime the coefficients are random B-bit integers (default: the bit length of
+// the secret, at least 64); with it they are uniform in GF(p) and the document records p.
+// --bases gives one base, a list that is cycled through, or a random base per share.
+// Coefficients come from SecureRandom unless --seed asks for a reproducible split.
+final class ShareSplitter {
+
+    private ShareSplitter() {
+    }
+
+    // The polynomial with the secret as its constant term
+    static BigInteger[] randomPolynomial(BigInteger secret, int k, int bits, BigInteger modulus, Random random) {
+        if (modulus != null && (secret.signum() < 0 || secret.compareTo(modulus) >= 0)) {
+            throw new IllegalArgumentException("The secret must be between 0 and p - 1");
+        }
+        BigInteger[] coefficients = new BigInteger[k];
+        coefficients[0] = secret;
+        for (int j = 1; j < k; j++) {
+            coefficients[j] = modulus == null
+                    ? new BigInteger(bits, random)
+                    : new BigInteger(modulus.bitLength() + 64, random).mod(modulus);
+        }
+        return coefficients;
+    }
+
+    // Base of every share: one fixed base, a cycled list, or uniformly random
+    static int[] bases(String spec, int n, Random random) {
+        int[] bases = new int[n];
+        if (spec.equals("random")) {
+            for (int i = 0; i < n; i++) {
+                bases[i] = Character.MIN_RADIX + random.nextInt(Character.MAX_RADIX - Character.MIN_RADIX + 1);
+            }
+            return bases;
+        }
+        String[] parts = spec.split(",");
+        int[] cycle = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            cycle[i] = Integer.parseInt(parts[i].trim());
+            if (cycle[i] < Character.MIN_RADIX || cycle[i] > Character.MAX_RADIX) {
+                throw new IllegalArgumentException("Base must be between 2 and 36, got " + cycle[i]);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            bases[i] = cycle[i % cycle.length];
+        }
+        return bases;
+    }
+
+    // Writes the document for shares x = 1..n of the polynomial
+    static void write(Writer out, BigInteger[] coefficients, int n, BigInteger modulus, ShareSetGenerator.Format format,
+                      int[] bases, int parallelism) throws IOException {
+        int k = coefficients.length;
+        writeHeader(out, n, k, modulus, format);
+
+        int[] xs = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = i + 1;
+        }
+        int chunk = MultipointEvaluation.chunkSize(k, n, modulus, parallelism);
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            // At most two chunks per thread are evaluated ahead of the writer
+            Deque<Future<String>> pending = new ArrayDeque<>();
+            int next = 0;
+            while (next < n || !pending.isEmpty()) {
+                while (next < n && pending.size() < 2 * Math.max(1, parallelism)) {
+                    int from = next;
+                    int to = Math.min(n, next + chunk);
+                    pending.add(workers.submit(() -> formatChunk(coefficients, xs, from, to, modulus, format, bases)));
+                    next = to;
+                }
+                out.write(pending.removeFirst().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating shares");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        out.write("\n}\n");
+    }
+
+    // Opens the document up to the first share; shares follow as ",\n    ..." and "\n}\n" closes it
+    static void writeHeader(Writer out, int n, int k, BigInteger modulus, ShareSetGenerator.Format format) throws IOException {
+        if (format == ShareSetGenerator.Format.ASSIGNMENT) {
+            out.write("{\n    \"keys\": {\n        \"n\": " + n + ",\n        \"k\": " + k);
+            if (modulus != null) {
+                out.write(",\n        \"prime\": \"" + modulus + "\"");
+            }
+            out.write("\n    }");
+        } else {
+            out.write("{\n    \"n\": " + n + ",\n    \"k\": " + k);
+            if (modulus != null) {
+                out.write(",\n    \"prime\": \"" + modulus + "\"");
+            }
+        }
+    }
+
+    static void appendShare(StringBuilder sb, int x, BigInteger value, ShareSetGenerator.Format format, int base) {
+        if (format == ShareSetGenerator.Format.ASSIGNMENT) {
+            sb.append(",\n    \"").append(x).append("\": {\n        \"base\": \"").append(base)
+              .append("\",\n        \"value\": \"").append(RadixConversion.toString(value, base)).append("\"\n    }");
+        } else {
+            sb.append(",\n    \"").append(x).append("\": \"").append(RadixConversion.toString(value, 10)).append('"');
+        }
+    }
+
+    private static String formatChunk(BigInteger[] coefficients, int[] xs, int from, int to, BigInteger modulus,
+                                      ShareSetGenerator.Format format, int[] bases) {
+        BigInteger[] values = new BigInteger[to - from];
+        MultipointEvaluation.evaluate(coefficients, Arrays.copyOfRange(xs, from, to), 0, to - from, modulus, values);
+        StringBuilder sb = new StringBuilder((to - from) * 64);
+        for (int i = from; i < to; i++) {
+            appendShare(sb, xs[i], values[i - from], format, bases[i]);
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        BigInteger secret = null;
+        int n = -1;
+        int k = -1;
+        BigInteger modulus = null;
+        int bits = 0;
+        ShareSetGenerator.Format format = ShareSetGenerator.Format.ASSIGNMENT;
+        String bases = "10";
+        Long seed = null;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        String out = null;
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String name = equals < 0 ? arg : arg.substring(0, equals);
+            String value = equals < 0 ? "" : arg.substring(equals + 1);
+            switch (name) {
+                case "--secret":
+                    secret = new BigInteger(value);
+                    break;
+                case "--n":
+                    n = Integer.parseInt(value);
+                    break;
+                case "--k":
+                    k = Integer.parseInt(value);
+                    break;
+                case "--prime":
+                    modulus = PrimeField.parseModulus(value);
+                    break;
+                case "--bits":
+                    bits = Integer.parseInt(value);
+                    break;
+                case "--format":
+                    format = ShareSetGenerator.Format.fromName(value);
+                    break;
+                case "--bases":
+                    bases = value;
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--parallelism":
+                    parallelism = Integer.parseInt(value);
+                    if (parallelism <= 0) {
+                        parallelism = Runtime.getRuntime().availableProcessors();
+                    }
+                    break;
+                case "--out":
+                    out = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (secret == null) {
+            throw new IllegalArgumentException("split needs --secret");
+        }
+        SecretSharing.validateNK(n, k);
+        if (modulus != null && modulus.compareTo(BigInteger.valueOf(n)) <= 0) {
+            throw new IllegalArgumentException("The prime must be larger than n");
+        }
+        if (bits <= 0) {
+            bits = Math.max(64, secret.bitLength());
+        }
+
+        Random random = seed == null ? new SecureRandom() : new Random(seed);
+        BigInteger[] coefficients = randomPolynomial(secret, k, bits, modulus, random);
+        int[] shareBases = bases(bases, n, random);
+        long start = System.nanoTime();
+        try (Writer writer = out == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedWriter(Paths.get(out), StandardCharsets.UTF_8)) {
+            write(writer, coefficients, n, modulus, format, shareBases, parallelism);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Split the secret into %d shares (k = %d) in %.2f s, %.0f shares/s%n", n, k, seconds, n / seconds);
+    }
+}
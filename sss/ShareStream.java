@@ -0,0 +1,249 @@
+package sss;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Streaming mode (--stream): shares arrive one per line, as they are handed in, and the
+// secret is reported as soon as k of them are in.
+//
+// Every input line is a JSON object holding any members of a share document, e.g.
+//     {"keys": {"n": 5, "k": 3}}   {"k": 3, "prime": "p256"}
+//     {"2": {"base": "16", "value": "1f"}}   {"4": "sum(10, 20)"}
+// Shares received before k is known are held back. From then on every share extends a
+// Newton divided-difference table in O(k); the k-th one yields the secret, and every later
+// share is checked against that polynomial and reported as consistent or corrupted (or as
+// unverified when the first k did not give an integer secret). At end of input a final
+// line gives the verdict over all shares: the streamed secret if no share disagreed,
+// otherwise a full combination vote as in findSecret.
+//
+// Output is one JSON line per event:
+//     {"x":2,"status":"received","shares":1,"k":3}
+//     {"secret":"...","shares":[2, 4, 5]}
+//     {"x":1,"status":"consistent"}   {"x":3,"status":"corrupted"}   {"x":6,"status":"unverified"}
+//     {"error":"..."}   (the line is ignored)
+//     {"final":true,"secret":"...","validShares":[..],"wrongShares":[..]}
+//
+// Input is stdin (or the file given), or with --serve-unix=PATH a Unix domain socket on
+// which every connection is one stream with its replies on the same connection.
+final class ShareStream {
+
+    private final SecretSharing.Options options;
+    private final Writer out;
+    private int k = -1;
+    private BigInteger modulus;
+    private NewtonInterpolation table;
+    private BigInteger secret;
+    private int corrupted;
+    // Every share in order of arrival, for the table and the final vote
+    private final Map<Integer, BigInteger> received = new LinkedHashMap<>();
+
+    private ShareStream(SecretSharing.Options options, Writer out) {
+        this.options = options;
+        this.out = out;
+        this.modulus = options.modulus;
+    }
+
+    static void run(SecretSharing.Options options) throws IOException, InterruptedException {
+        // Events are the output; the pipeline's progress lines would get mixed into them
+        options = options.withLog(Log.QUIET);
+        if (options.unixSocket != null) {
+            serve(Paths.get(options.unixSocket), options);
+            return;
+        }
+        String source = options.files.isEmpty() ? ShareInput.STDIN : options.files.get(0);
+        InputStream in = source.equals(ShareInput.STDIN) ? System.in : new FileInputStream(source);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            new ShareStream(options, out).consume(reader);
+        }
+        out.flush();
+    }
+
+    private static void serve(Path path, SecretSharing.Options options) throws IOException, InterruptedException {
+        Files.deleteIfExists(path);
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(path));
+        System.out.println("Listening on unix:" + path);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // shutting down anyway
+            }
+        }));
+        ExecutorService sessions = Executors.newCachedThreadPool(ReconstructionServer.daemonThreads());
+        sessions.execute(() -> {
+            while (server.isOpen()) {
+                try {
+                    SocketChannel channel = server.accept();
+                    sessions.execute(() -> {
+                        try (SocketChannel connection = channel;
+                             BufferedReader reader = new BufferedReader(new InputStreamReader(
+                                     ReconstructionServer.inputStream(connection), StandardCharsets.UTF_8));
+                             Writer writer = new BufferedWriter(new OutputStreamWriter(
+                                     ReconstructionServer.outputStream(connection), StandardCharsets.UTF_8))) {
+                            new ShareStream(options, writer).consume(reader);
+                        } catch (IOException e) {
+                            // client went away
+                        }
+                    });
+                } catch (IOException e) {
+                    return; // closed on shutdown
+                }
+            }
+        });
+        new CountDownLatch(1).await();
+    }
+
+    private void consume(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                accept(line);
+                out.flush();
+            }
+        }
+        finish();
+        out.flush();
+    }
+
+    private void accept(String line) throws IOException {
+        SecretSharing.SecretSharingInput fragment;
+        try {
+            fragment = ShareJsonTokenizer.parseFragment(line);
+            configure(fragment);
+        } catch (RuntimeException e) {
+            error(e);
+            return;
+        }
+        Map<Integer, BigInteger> shares = new TreeMap<>(fragment.decodedShares);
+        for (Map.Entry<Integer, String> share : fragment.shares.entrySet()) {
+            ShareExpressions.Value value = ShareExpressions.evaluate(share.getValue());
+            if (value.error != null) {
+                emit("{\"error\":" + BatchRunner.quote("Error decoding share " + share.getKey() + ": " + value.error) + "}");
+            } else {
+                shares.put(share.getKey(), value.value);
+            }
+        }
+        for (Map.Entry<Integer, BigInteger> share : shares.entrySet()) {
+            int x = share.getKey();
+            if (received.containsKey(x)) {
+                emit("{\"error\":" + BatchRunner.quote("Share " + x + " was already received") + "}");
+                continue;
+            }
+            received.put(x, share.getValue());
+            if (k < 0) {
+                emit("{\"x\":" + x + ",\"status\":\"received\",\"shares\":" + received.size() + "}");
+                continue;
+            }
+            try {
+                apply(x, share.getValue());
+            } catch (RuntimeException e) {
+                received.remove(x);
+                error(e);
+            }
+        }
+    }
+
+    // Takes k and the prime from a header line; shares held back so far are applied once k is known
+    private void configure(SecretSharing.SecretSharingInput fragment) throws IOException {
+        if (fragment.modulus != null && !fragment.modulus.equals(modulus)) {
+            if (table != null) {
+                throw new IllegalArgumentException("The prime cannot change once shares have been interpolated");
+            }
+            if (options.modulus == null) {
+                modulus = fragment.modulus;
+            }
+        }
+        if (fragment.k >= 0 && fragment.k != k) {
+            if (k >= 0) {
+                throw new IllegalArgumentException("k is already " + k);
+            }
+            if (fragment.k < 2) {
+                throw new IllegalArgumentException("k must be at least 2 for meaningful secret sharing");
+            }
+            k = fragment.k;
+            for (Map.Entry<Integer, BigInteger> share : received.entrySet()) {
+                apply(share.getKey(), share.getValue());
+            }
+        }
+    }
+
+    private void apply(int x, BigInteger y) throws IOException {
+        if (table == null) {
+            table = NewtonInterpolation.create(modulus == null ? null : new PrimeField(modulus));
+        }
+        if (table.size() < k) {
+            long start = System.nanoTime();
+            table.add(x, y);
+            Metrics.record(Metrics.Stage.INTERPOLATE, start);
+            emit("{\"x\":" + x + ",\"status\":\"received\",\"shares\":" + table.size() + ",\"k\":" + k + "}");
+            if (table.size() == k) {
+                secret = table.valueAtZero(k);
+                if (secret == null) {
+                    emit("{\"error\":\"The first " + k + " shares do not interpolate to an integer, at least one of them is wrong\"}");
+                } else {
+                    emit("{\"secret\":\"" + secret + "\",\"shares\":" + Arrays.toString(Arrays.copyOf(table.xs, k)) + "}");
+                }
+            }
+        } else if (secret == null) {
+            // Without a secret from the first k there is nothing to check against; the final
+            // vote decides which shares are wrong, and counts them
+            emit("{\"x\":" + x + ",\"status\":\"unverified\"}");
+        } else if (table.matches(x, y, k)) {
+            emit("{\"x\":" + x + ",\"status\":\"consistent\"}");
+        } else {
+            // Provisional: the first k may hold the wrong share, so only the final verdict is counted
+            corrupted++;
+            emit("{\"x\":" + x + ",\"status\":\"corrupted\"}");
+        }
+    }
+
+    private void finish() throws IOException {
+        if (k < 0 || received.size() < k) {
+            emit("{\"final\":true,\"error\":\"Received " + received.size() + " shares, "
+                    + (k < 0 ? "k was never given" : "need " + k) + "\"}");
+            return;
+        }
+        SecretSharing.ReconstructionResult result;
+        if (secret != null && corrupted == 0) {
+            result = new SecretSharing.ReconstructionResult();
+            result.secret = secret;
+            result.validShares.addAll(received.keySet());
+        } else {
+            // Some share disagreed with the first k, which may themselves hold the wrong one
+            try {
+                SecretSharing.Options voting = options.modulus == null && modulus != null ? options.withModulus(modulus) : options;
+                result = SecretSharing.findSecret(received, k, voting);
+            } catch (RuntimeException e) {
+                emit("{\"final\":true,\"error\":" + BatchRunner.quote(String.valueOf(e.getMessage())) + "}");
+                return;
+            }
+        }
+        emit("{\"final\":true,\"secret\":\"" + result.secret + "\",\"validShares\":" + result.validShares
+                + ",\"wrongShares\":" + result.wrongShares + "}");
+    }
+
+    private void error(RuntimeException e) throws IOException {
+        String message = e.getMessage() != null ? e.getMessage() : e.toString();
+        emit("{\"error\":" + BatchRunner.quote(message) + "}");
+    }
+
+    private void emit(String event) throws IOException {
+        out.write(event);
+        out.write('\n');
+    }
+}
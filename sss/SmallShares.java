@@ -0,0 +1,132 @@
+package sss;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+// Shares whose values all fit in a long, interpolated over the integers in machine words.
+//
+// x-coordinates are small ints, so every basis numerator prod_{j != i} (-x_j) and
+// denominator prod_{j != i} (x_i - x_j) is usually a long; each fraction is reduced by
+// its gcd, the weights are brought to the LCM of the reduced denominators, and
+// sum y_i * weight_i is accumulated in 128 bits (Math.multiplyHigh plus a carry) before
+// the single exact division of lagrangeInterpolation. A product that leaves 64 bits or a
+// sum that leaves 128 bits sends that subset to the BigInteger path instead; results and
+// errors are the same either way.
+final class SmallShares {
+
+    private final int[] xs;
+    private final long[] ys;
+    private final BigInteger[] values;
+
+    private SmallShares(int[] xs, long[] ys, BigInteger[] values) {
+        this.xs = xs;
+        this.ys = ys;
+        this.values = values;
+    }
+
+    // The shares in words, or null if some value needs more than 63 bits
+    static SmallShares of(int[] xs, BigInteger[] values) {
+        long[] ys = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null || values[i].bitLength() > 63) {
+                return null;
+            }
+            ys[i] = values[i].longValue();
+        }
+        return new SmallShares(xs, ys, values);
+    }
+
+    BigInteger interpolateAtZero(int[] indices) {
+        BigInteger secret = interpolateInWords(indices);
+        return secret != null ? secret : SecretSharing.lagrangeInterpolation(xs, values, indices);
+    }
+
+    // f(0), or null when an intermediate value does not fit (or the input is invalid, which
+    // the BigInteger path then reports)
+    private BigInteger interpolateInWords(int[] indices) {
+        int k = indices.length;
+        if (k < 2) {
+            return null;
+        }
+        long[] numerators = new long[k];
+        long[] denominators = new long[k];
+        long common = 1;
+        for (int i = 0; i < k; i++) {
+            long xi = xs[indices[i]];
+            long numerator = 1;
+            long denominator = 1;
+            for (int j = 0; j < k; j++) {
+                if (j == i) {
+                    continue;
+                }
+                long xj = xs[indices[j]];
+                long difference = xi - xj;
+                if (difference == 0 || !fits(numerator, -xj) || !fits(denominator, difference)) {
+                    return null;
+                }
+                numerator *= -xj;
+                denominator *= difference;
+            }
+            if (denominator == Long.MIN_VALUE || numerator == Long.MIN_VALUE) {
+                return null;
+            }
+            long divisor = gcd(Math.abs(numerator), Math.abs(denominator));
+            numerator /= divisor;
+            denominator /= divisor;
+            if (denominator < 0) {
+                numerator = -numerator;
+                denominator = -denominator;
+            }
+            numerators[i] = numerator;
+            denominators[i] = denominator;
+            long factor = denominator / gcd(common, denominator);
+            if (!fits(common, factor)) {
+                return null;
+            }
+            common *= factor;
+        }
+
+        // 128-bit two's-complement sum in high:low
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < k; i++) {
+            long scale = common / denominators[i];
+            if (!fits(numerators[i], scale)) {
+                return null;
+            }
+            long weight = numerators[i] * scale;
+            long y = ys[indices[i]];
+            long productHigh = Math.multiplyHigh(y, weight);
+            long sumLow = low + y * weight;
+            long sumHigh = high + productHigh + (Long.compareUnsigned(sumLow, low) < 0 ? 1 : 0);
+            if (((high ^ sumHigh) & (productHigh ^ sumHigh)) < 0) {
+                return null;
+            }
+            high = sumHigh;
+            low = sumLow;
+        }
+
+        if (high == low >> 63) {
+            if (low % common == 0) {
+                return BigInteger.valueOf(low / common);
+            }
+            return SecretSharing.divideExactly(BigInteger.valueOf(low), BigInteger.valueOf(common));
+        }
+        BigInteger total = new BigInteger(ByteBuffer.allocate(16).putLong(high).putLong(low).array());
+        return SecretSharing.divideExactly(total, BigInteger.valueOf(common));
+    }
+
+    // Whether a * b fits in a long
+    private static boolean fits(long a, long b) {
+        return Math.multiplyHigh(a, b) == (a * b) >> 63;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,39 @@
+package sss;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// The subproduct-tree interpolation against the O(k^2) Montgomery Lagrange, and above
+// FastInterpolation.THRESHOLD, where Points switches to it, against the constant term.
+class FastInterpolationTest {
+
+    @Test
+    void agreesWithMontgomeryLagrange() {
+        Random random = new Random(1);
+        for (BigInteger prime : new BigInteger[] {PrimeField.P256, PrimeField.P25519, PrimeField.P521}) {
+            for (int trial = 0; trial < 20; trial++) {
+                int k = 2 + random.nextInt(trial % 4 == 0 ? 300 : 16);
+                int[] xs = Polynomials.distinctXs(random, k + 3, 4 * k + 12);
+                BigInteger[] ys = Polynomials.values(Polynomials.polynomial(random, k, prime.bitLength() + 8), xs, prime);
+                int[] indices = Polynomials.subset(random, xs.length, k);
+                assertEquals(new PrimeField(prime).new Points(xs, ys).lagrangeAtZero(indices),
+                        FastInterpolation.interpolateAtZero(xs, ys, indices, prime),
+                        "k = " + k + " mod " + prime.bitLength() + "-bit p");
+            }
+        }
+    }
+
+    @Test
+    void aboveTheThreshold() {
+        Random random = new Random(2);
+        int k = FastInterpolation.THRESHOLD + random.nextInt(1000);
+        int[] xs = Polynomials.distinctXs(random, k, 4 * k);
+        BigInteger[] coefficients = Polynomials.polynomial(random, k, 264);
+        BigInteger[] ys = MultipointEvaluation.evaluate(coefficients, xs, PrimeField.P256, 1);
+        assertEquals(coefficients[0].mod(PrimeField.P256),
+                new PrimeField(PrimeField.P256).new Points(xs, ys).interpolateAtZero(Polynomials.range(k)), "k = " + k);
+    }
+}
@@ -0,0 +1,84 @@
+package sss;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+// The incremental weights against a full lagrangeInterpolation after every step of a
+// revolving-door walk, and the walk itself.
+class IncrementalLagrangeTest {
+
+    @Test
+    void agreesWithRecomputationAlongTheWalk() {
+        Random random = new Random(1);
+        for (int bits : new int[] {8, 64, 512, 4096}) {
+            int k = 2 + random.nextInt(6);
+            int n = k + 1 + random.nextInt(4);
+            int[] xs = Polynomials.distinctXs(random, n, 4 * n);
+            BigInteger[] ys = Polynomials.values(Polynomials.polynomial(random, k, bits), xs);
+            // One inconsistent share, so some subsets have no integer secret
+            int corrupted = random.nextInt(n);
+            ys[corrupted] = ys[corrupted].add(BigInteger.ONE);
+
+            RevolvingDoorCombinations door = new RevolvingDoorCombinations(n, k);
+            door.next();
+            IncrementalLagrange weights = new IncrementalLagrange(xs, ys, door.slots());
+            do {
+                int[] subset = door.slots().clone();
+                String name = Polynomials.describe(xs, subset, bits);
+                assertEquals(Polynomials.outcome(() -> SecretSharing.lagrangeInterpolation(xs, ys, subset)),
+                        Polynomials.outcome(weights::secret), name);
+                if (!door.next()) {
+                    break;
+                }
+                weights.replaced(door.changedSlot(), door.removed());
+            } while (true);
+        }
+    }
+
+    @Test
+    void replacingOneShare() {
+        Random random = new Random(2);
+        for (int trial = 0; trial < 50; trial++) {
+            int k = 2 + random.nextInt(12);
+            int[] xs = Polynomials.distinctXs(random, k + 2, 1_000_000);
+            BigInteger[] coefficients = Polynomials.polynomial(random, k, 256);
+            BigInteger[] ys = Polynomials.values(coefficients, xs);
+            int[] slots = Polynomials.range(k);
+            IncrementalLagrange weights = new IncrementalLagrange(xs, ys, slots);
+            slots[k - 1] = k + random.nextInt(2);
+            weights.replaced(k - 1, k - 1);
+            assertEquals(coefficients[0], weights.secret(), Polynomials.describe(xs, slots, 256));
+        }
+    }
+
+    @Test
+    void walkVisitsEverySubsetOnceChangingOneShare() {
+        int n = 9;
+        int k = 4;
+        RevolvingDoorCombinations door = new RevolvingDoorCombinations(n, k);
+        Set<Set<Integer>> seen = new HashSet<>();
+        Set<Integer> previous = null;
+        while (door.next()) {
+            Set<Integer> subset = new HashSet<>();
+            for (int position : door.slots()) {
+                subset.add(position);
+            }
+            assertEquals(k, subset.size());
+            assertTrue(seen.add(subset), "visited twice: " + subset);
+            if (previous != null) {
+                Set<Integer> left = new HashSet<>(previous);
+                left.removeAll(subset);
+                assertEquals(Set.of(door.removed()), left);
+                assertEquals(door.added(), door.slots()[door.changedSlot()]);
+            }
+            previous = subset;
+        }
+        assertEquals(Combinations.count(n, k).intValueExact(), seen.size());
+        assertThrows(IllegalArgumentException.class, () -> new RevolvingDoorCombinations(4, 4));
+    }
+}
@@ -0,0 +1,89 @@
+package sss;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// The exact integer interpolation that every other engine is tested against, and the
+// factored denominators it sums over.
+class LagrangeInterpolationTest {
+
+    @Test
+    void recoversTheConstantTerm() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 200; trial++) {
+            int bits = new int[] {8, 64, 512, 4096}[trial % 4];
+            int k = 2 + random.nextInt(trial % 8 == 0 ? 64 : 12);
+            // Differences beyond LagrangeDenominators.SIEVE_LIMIT take the gcd-based LCM
+            int[] xs = Polynomials.distinctXs(random, k, random.nextInt(4) == 0 ? 1_000_000 : 4 * k);
+            BigInteger[] coefficients = Polynomials.polynomial(random, k, bits);
+            BigInteger[] ys = Polynomials.values(coefficients, xs);
+            int[] indices = Polynomials.range(k);
+            assertEquals(coefficients[0], SecretSharing.lagrangeInterpolation(xs, ys, indices),
+                    Polynomials.describe(xs, indices, bits));
+        }
+    }
+
+    // A share off by one leaves a fraction, or another integer, but never the secret
+    @Test
+    void inconsistentSharesAreRejectedOrDiffer() {
+        Random random = new Random(2);
+        int rejected = 0;
+        for (int trial = 0; trial < 100; trial++) {
+            int k = 3 + random.nextInt(10);
+            int[] xs = Polynomials.distinctXs(random, k, 4 * k);
+            BigInteger[] coefficients = Polynomials.polynomial(random, k, 128);
+            BigInteger[] ys = Polynomials.values(coefficients, xs);
+            int share = random.nextInt(k);
+            ys[share] = ys[share].add(BigInteger.ONE);
+            BigInteger secret = Polynomials.outcome(() -> SecretSharing.lagrangeInterpolation(xs, ys, Polynomials.range(k)));
+            assertNotEquals(coefficients[0], secret);
+            if (secret == null) {
+                rejected++;
+            }
+        }
+        assertTrue(rejected > 50, "only " + rejected + " inconsistent sets rejected");
+    }
+
+    // common = cofactor_i * prod_{j != i} (x_i - x_j) for every i, with common the LCM
+    @Test
+    void cofactorsMultiplyUpToTheCommonDenominator() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 100; trial++) {
+            int k = 2 + random.nextInt(40);
+            int[] xs = Polynomials.distinctXs(random, k + 4, trial % 2 == 0 ? 4 * k + 16 : 60_000);
+            int[] indices = Polynomials.subset(random, xs.length, k);
+            BigInteger[] cofactors = new BigInteger[k];
+            BigInteger common = LagrangeDenominators.cofactors(xs, indices, cofactors);
+            assertNotNull(common, Polynomials.describe(xs, indices, 0));
+            BigInteger lcm = BigInteger.ONE;
+            for (int i = 0; i < k; i++) {
+                BigInteger denominator = BigInteger.ONE;
+                for (int j = 0; j < k; j++) {
+                    if (j != i) {
+                        denominator = denominator.multiply(BigInteger.valueOf((long) xs[indices[i]] - xs[indices[j]]));
+                    }
+                }
+                assertEquals(common, cofactors[i].multiply(denominator), Polynomials.describe(xs, indices, 0) + ", share " + i);
+                lcm = lcm.divide(lcm.gcd(denominator.abs())).multiply(denominator.abs());
+            }
+            assertEquals(lcm, common);
+        }
+    }
+
+    @Test
+    void differencesBeyondTheSieveAreNotFactored() {
+        int[] xs = {1, LagrangeDenominators.SIEVE_LIMIT + 2};
+        assertNull(LagrangeDenominators.cofactors(xs, Polynomials.range(2), new BigInteger[2]));
+    }
+
+    @Test
+    void needsTwoDistinctShares() {
+        int[] xs = {1, 2, 2};
+        BigInteger[] ys = {BigInteger.ONE, BigInteger.TWO, BigInteger.TWO};
+        assertThrows(IllegalArgumentException.class, () -> SecretSharing.lagrangeInterpolation(xs, ys, new int[] {0}));
+        assertThrows(IllegalArgumentException.class, () -> SecretSharing.lagrangeInterpolation(xs, ys, new int[] {1, 2}));
+    }
+}
@@ -0,0 +1,83 @@
+package sss;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// The streaming Newton table against lagrangeInterpolation, over the integers and GF(p).
+class NewtonInterpolationTest {
+
+    @Test
+    void integersAgreeWithLagrange() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 100; trial++) {
+            int bits = new int[] {8, 64, 512, 4096}[trial % 4];
+            int k = 2 + random.nextInt(trial % 8 == 0 ? 40 : 12);
+            int n = k + 2;
+            // Differences beyond LagrangeDenominators.SIEVE_LIMIT as well
+            int[] xs = Polynomials.distinctXs(random, n, random.nextInt(4) == 0 ? 1_000_000 : 4 * n);
+            BigInteger[] ys = Polynomials.values(Polynomials.polynomial(random, k, bits), xs);
+            boolean corrupted = random.nextInt(3) == 0;
+            if (corrupted) {
+                int share = random.nextInt(k);
+                ys[share] = ys[share].add(BigInteger.ONE);
+            }
+            int[] indices = Polynomials.range(k);
+            String name = Polynomials.describe(xs, indices, bits);
+
+            NewtonInterpolation newton = NewtonInterpolation.create(null);
+            for (int i = 0; i < k; i++) {
+                newton.add(xs[i], ys[i]);
+            }
+            // null where Lagrange finds no integer secret
+            assertEquals(Polynomials.outcome(() -> SecretSharing.lagrangeInterpolation(xs, ys, indices)),
+                    newton.valueAtZero(k), name);
+            if (!corrupted) {
+                for (int i = k; i < n; i++) {
+                    assertTrue(newton.matches(xs[i], ys[i], k), name + ", share " + xs[i]);
+                    assertFalse(newton.matches(xs[i], ys[i].add(BigInteger.ONE), k), name + ", share " + xs[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void fieldAgreesWithLagrangeModP() {
+        Random random = new Random(2);
+        for (BigInteger prime : new BigInteger[] {PrimeField.P256, PrimeField.P25519, PrimeField.P521}) {
+            for (int trial = 0; trial < 30; trial++) {
+                int k = 2 + random.nextInt(trial % 8 == 0 ? 200 : 16);
+                int[] xs = Polynomials.distinctXs(random, k, 4 * k);
+                BigInteger[] coefficients = Polynomials.polynomial(random, k, prime.bitLength() + 8);
+                BigInteger[] ys = Polynomials.values(coefficients, xs, prime);
+                NewtonInterpolation newton = NewtonInterpolation.create(new PrimeField(prime));
+                for (int i = 0; i < k; i++) {
+                    newton.add(xs[i], ys[i]);
+                }
+                assertEquals(coefficients[0].mod(prime), newton.valueAtZero(k),
+                        Polynomials.describe(xs, Polynomials.range(k), prime.bitLength()));
+            }
+        }
+    }
+
+    // Each prefix of the stream is the polynomial through those shares only
+    @Test
+    void prefixesOfTheStream() {
+        Random random = new Random(3);
+        int[] xs = Polynomials.distinctXs(random, 10, 50);
+        BigInteger[] ys = Polynomials.values(Polynomials.polynomial(random, 10, 128), xs);
+        NewtonInterpolation newton = NewtonInterpolation.create(null);
+        for (int i = 0; i < xs.length; i++) {
+            newton.add(xs[i], ys[i]);
+        }
+        for (int terms = 2; terms <= xs.length; terms++) {
+            int[] indices = Polynomials.range(terms);
+            assertEquals(Polynomials.outcome(() -> SecretSharing.lagrangeInterpolation(xs, ys, indices)),
+                    newton.valueAtZero(terms), "first " + terms + " shares");
+        }
+        assertEquals(xs.length, newton.size());
+        assertThrows(IllegalArgumentException.class, () -> newton.add(xs[0], BigInteger.ONE));
+    }
+}
@@ -0,0 +1,58 @@
+package sss;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// Transform products against the schoolbook product of signed polynomials.
+class NumberTheoreticTransformTest {
+
+    @Test
+    void multiplyAgreesWithSchoolbook() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 100; trial++) {
+            BigInteger[] a = Polynomials.polynomial(random, 1 + random.nextInt(300), 1 + random.nextInt(256));
+            BigInteger[] b = Polynomials.polynomial(random, 1 + random.nextInt(300), 1 + random.nextInt(256));
+            assertArrayEquals(schoolbook(a, b), NumberTheoreticTransform.multiply(a, b),
+                    "degrees " + (a.length - 1) + " x " + (b.length - 1));
+        }
+    }
+
+    // The cyclic product folds coefficient i + size onto coefficient i
+    @Test
+    void multiplyCyclicWraps() {
+        Random random = new Random(2);
+        BigInteger[] a = Polynomials.polynomial(random, 40, 100);
+        BigInteger[] b = Polynomials.polynomial(random, 30, 100);
+        int logLength = 6;
+        BigInteger[] expected = new BigInteger[1 << logLength];
+        Arrays.fill(expected, BigInteger.ZERO);
+        BigInteger[] product = schoolbook(a, b);
+        for (int i = 0; i < product.length; i++) {
+            expected[i % expected.length] = expected[i % expected.length].add(product[i]);
+        }
+        assertArrayEquals(expected, NumberTheoreticTransform.multiplyCyclic(a, b, logLength));
+    }
+
+    // Coefficients beyond what the primes can recombine are left to the caller
+    @Test
+    void tooLargeGivesNull() {
+        Random random = new Random(3);
+        BigInteger[] a = Polynomials.polynomial(random, 4, 4000);
+        assertNull(NumberTheoreticTransform.multiply(a, a));
+    }
+
+    private static BigInteger[] schoolbook(BigInteger[] a, BigInteger[] b) {
+        BigInteger[] product = new BigInteger[a.length + b.length - 1];
+        Arrays.fill(product, BigInteger.ZERO);
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b.length; j++) {
+                product[i + j] = product[i + j].add(a[i].multiply(b[j]));
+            }
+        }
+        return product;
+    }
+}
@@ -0,0 +1,108 @@
+package sss;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Random polynomials and shares of them for the interpolation engine tests. Every engine is
+// checked against SecretSharing.lagrangeInterpolation or the constant term on these.
+final class Polynomials {
+
+    private Polynomials() {
+    }
+
+    // Signed coefficients, lowest degree first; sometimes the constant is moved so that
+    // f(1) = 0, giving a zero share whenever x = 1 is drawn
+    static BigInteger[] polynomial(Random random, int terms, int bits) {
+        BigInteger[] coefficients = new BigInteger[terms];
+        for (int i = 0; i < terms; i++) {
+            coefficients[i] = new BigInteger(bits, random);
+            if (random.nextBoolean()) {
+                coefficients[i] = coefficients[i].negate();
+            }
+        }
+        if (random.nextInt(4) == 0) {
+            BigInteger atOne = BigInteger.ZERO;
+            for (BigInteger coefficient : coefficients) {
+                atOne = atOne.add(coefficient);
+            }
+            coefficients[0] = coefficients[0].subtract(atOne);
+        }
+        return coefficients;
+    }
+
+    static BigInteger[] values(BigInteger[] coefficients, int[] xs) {
+        return values(coefficients, xs, null);
+    }
+
+    // f(x) for every x, exactly or mod p
+    static BigInteger[] values(BigInteger[] coefficients, int[] xs, BigInteger modulus) {
+        BigInteger[] ys = new BigInteger[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            BigInteger y = BigInteger.ZERO;
+            for (int c = coefficients.length - 1; c >= 0; c--) {
+                y = y.multiply(BigInteger.valueOf(xs[i])).add(coefficients[c]);
+                if (modulus != null) {
+                    y = y.mod(modulus);
+                }
+            }
+            ys[i] = y;
+        }
+        return ys;
+    }
+
+    // Distinct x-coordinates from 1 to limit in random order, with 1 (the zero share)
+    // included half the time
+    static int[] distinctXs(Random random, int count, int limit) {
+        Set<Integer> used = new LinkedHashSet<>();
+        if (random.nextBoolean()) {
+            used.add(1);
+        }
+        while (used.size() < count) {
+            used.add(1 + random.nextInt(limit));
+        }
+        List<Integer> shuffled = new ArrayList<>(used);
+        Collections.shuffle(shuffled, random);
+        return shuffled.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    static int[] range(int k) {
+        int[] indices = new int[k];
+        for (int i = 0; i < k; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    // k distinct positions out of n
+    static int[] subset(Random random, int n, int k) {
+        int[] positions = range(n);
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(n - i);
+            int swap = positions[i];
+            positions[i] = positions[j];
+            positions[j] = swap;
+        }
+        return Arrays.copyOf(positions, k);
+    }
+
+    // The engine's result, or null when it rejects the input (a fraction, say), so that
+    // engines can be compared on inconsistent shares too
+    static BigInteger outcome(Supplier<BigInteger> engine) {
+        try {
+            return engine.get();
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static String describe(int[] xs, int[] indices, int bits) {
+        return bits + " bits, k = " + indices.length + ", x = " + SecretSharing.describeCombination(xs, indices);
+    }
+}
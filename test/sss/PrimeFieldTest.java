@@ -0,0 +1,71 @@
+package sss;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// The Montgomery engine against the integer Lagrange baseline reduced mod p, for every
+// prime the command line names.
+class PrimeFieldTest {
+
+    private static final BigInteger[] PRIMES = {PrimeField.P256, PrimeField.P25519, PrimeField.P521};
+
+    @Test
+    void montgomeryAgreesWithIntegerLagrangeModP() {
+        Random random = new Random(1);
+        for (BigInteger prime : PRIMES) {
+            for (int trial = 0; trial < 60; trial++) {
+                int k = 2 + random.nextInt(16);
+                int[] xs = Polynomials.distinctXs(random, k, 4 * k);
+                BigInteger[] coefficients = Polynomials.polynomial(random, k, prime.bitLength() + 8);
+                BigInteger[] ys = Polynomials.values(coefficients, xs);
+                int[] indices = Polynomials.range(k);
+                String name = Polynomials.describe(xs, indices, prime.bitLength());
+
+                BigInteger expected = SecretSharing.lagrangeInterpolation(xs, ys, indices).mod(prime);
+                assertEquals(coefficients[0].mod(prime), expected, name);
+                assertEquals(expected, new PrimeField(prime).new Points(xs, ys).lagrangeAtZero(indices), name);
+            }
+        }
+    }
+
+    // Subsets too large for the integer baseline, against the constant term
+    @Test
+    void largeSubsetsGiveTheConstantTerm() {
+        Random random = new Random(2);
+        for (BigInteger prime : PRIMES) {
+            int k = 100 + random.nextInt(200);
+            int[] xs = Polynomials.distinctXs(random, k, 4 * k);
+            BigInteger[] coefficients = Polynomials.polynomial(random, k, prime.bitLength() + 8);
+            BigInteger[] ys = Polynomials.values(coefficients, xs, prime);
+            PrimeField.Points points = new PrimeField(prime).new Points(xs, ys);
+            assertEquals(coefficients[0].mod(prime), points.lagrangeAtZero(Polynomials.range(k)), "k = " + k);
+        }
+    }
+
+    @Test
+    void subsetsOfMoreShares() {
+        Random random = new Random(3);
+        int n = 12;
+        int k = 7;
+        int[] xs = Polynomials.distinctXs(random, n, 100);
+        BigInteger[] coefficients = Polynomials.polynomial(random, k, 300);
+        PrimeField.Points points = new PrimeField(PrimeField.P256).new Points(xs, Polynomials.values(coefficients, xs));
+        for (int trial = 0; trial < 20; trial++) {
+            int[] indices = Polynomials.subset(random, n, k);
+            assertEquals(coefficients[0].mod(PrimeField.P256), points.interpolateAtZero(indices),
+                    Polynomials.describe(xs, indices, 256));
+        }
+    }
+
+    @Test
+    void modulusMustBeAnOddPrime() {
+        assertThrows(IllegalArgumentException.class, () -> new PrimeField(BigInteger.valueOf(2)));
+        assertThrows(IllegalArgumentException.class, () -> new PrimeField(BigInteger.valueOf(91)));
+        assertThrows(IllegalArgumentException.class, () -> PrimeField.parseModulus("p384"));
+        assertEquals(PrimeField.P25519, PrimeField.parseModulus("curve25519"));
+        assertEquals(BigInteger.valueOf(257), PrimeField.parseModulus("0x101"));
+    }
+}
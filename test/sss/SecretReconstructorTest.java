@@ -0,0 +1,99 @@
+package sss;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The whole pipeline through the library API: the sample documents, and generated share
+// sets with corrupted shares under every decoder, input form and degree of parallelism.
+class SecretReconstructorTest {
+
+    private static final SecretReconstructor QUIET = SecretReconstructor.builder().verbose(false).build();
+
+    @Test
+    void sampleDocuments() throws Exception {
+        assertEquals(BigInteger.valueOf(3), QUIET.reconstruct(Paths.get("testcase1.json")).secret());
+        assertEquals(new BigInteger("79836264049851"), QUIET.reconstruct(Paths.get("testcase2.json")).secret());
+    }
+
+    @Test
+    void everyDecoderFindsTheCorruptedShares() {
+        for (String decoder : new String[] {"combinations", "berlekamp-welch", "ransac"}) {
+            SecretReconstructor reconstructor = SecretReconstructor.builder()
+                    .decoder(decoder).seed(1).verbose(false).build();
+            for (long seed = 1; seed <= 5; seed++) {
+                ShareSetGenerator.ShareSet set = ShareSetGenerator.generate(10, 5, 128, 2, seed);
+                String document = ShareSetGenerator.document(set, ShareSetGenerator.Format.FUNCTION, 10, seed, false);
+                SecretReconstructor.Result result = reconstructor.reconstruct(document);
+                assertEquals(set.secret, result.secret(), decoder + ", seed " + seed);
+                assertEquals(set.corrupted, result.wrongShares(), decoder + ", seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void assignmentFormatInAnyBase() {
+        for (int base : new int[] {2, 10, 16, 36}) {
+            ShareSetGenerator.ShareSet set = ShareSetGenerator.generate(6, 4, 256, 0, base);
+            String document = ShareSetGenerator.document(set, ShareSetGenerator.Format.ASSIGNMENT, base, base, true);
+            assertEquals(set.secret, QUIET.reconstruct(document).secret(), "base " + base);
+        }
+    }
+
+    @Test
+    void parallelSearchAgreesWithSequential() throws Exception {
+        SecretReconstructor sequential = SecretReconstructor.builder().parallelism(1).verbose(false).build();
+        SecretReconstructor parallel = SecretReconstructor.builder().parallelism(4).verbose(false).build();
+        // input.json ties every secret at one vote, so this also pins the tie-break
+        for (String file : new String[] {"input.json", "robust_test.json", "test_input.json"}) {
+            assertEquals(sequential.reconstruct(Paths.get(file)).toString(),
+                    parallel.reconstruct(Paths.get(file)).toString(), file);
+        }
+        ShareSetGenerator.ShareSet set = ShareSetGenerator.generate(14, 7, 128, 3, 7);
+        String document = ShareSetGenerator.document(set, ShareSetGenerator.Format.FUNCTION, 10, 7, false);
+        assertEquals(sequential.reconstruct(document).toString(), parallel.reconstruct(document).toString());
+    }
+
+    @Test
+    void sharesAndContainerGiveTheSameResultAsJson(@TempDir Path directory) throws Exception {
+        ShareSetGenerator.ShareSet set = ShareSetGenerator.generate(8, 4, 200, 1, 3);
+        String document = ShareSetGenerator.document(set, ShareSetGenerator.Format.FUNCTION, 10, 3, false);
+        SecretReconstructor.Result expected = QUIET.reconstruct(document);
+
+        assertEquals(expected.toString(), QUIET.reconstruct(set.shares, set.k).toString());
+
+        Path json = directory.resolve("shares.json");
+        Files.writeString(json, document);
+        Path container = directory.resolve("shares.ssb");
+        ShareContainer.write(container, ShareContainer.load(json.toString(), Log.QUIET));
+        assertEquals(expected.toString(), QUIET.reconstruct(container).toString());
+    }
+
+    @Test
+    void primeField() {
+        BigInteger prime = PrimeField.P256;
+        ShareSetGenerator.ShareSet set = ShareSetGenerator.generate(7, 4, 128, 1, 11);
+        Map<Integer, BigInteger> reduced = new TreeMap<>();
+        set.shares.forEach((x, y) -> reduced.put(x, y.mod(prime)));
+        SecretReconstructor.Result result = SecretReconstructor.builder().prime(prime).verbose(false).build()
+                .reconstruct(reduced, set.k);
+        assertEquals(set.secret.mod(prime), result.secret());
+        assertEquals(set.corrupted, result.wrongShares());
+    }
+
+    @Test
+    void builderChecksItsSettings() {
+        SecretReconstructor.Builder builder = SecretReconstructor.builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.prime(BigInteger.valueOf(15)));
+        assertThrows(IllegalArgumentException.class, () -> builder.decoder("majority"));
+        assertThrows(IllegalArgumentException.class, () -> builder.confidence(1));
+        assertThrows(IllegalArgumentException.class, () -> builder.parallelism(-1));
+    }
+}
@@ -0,0 +1,54 @@
+package sss;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// The machine-word engine against lagrangeInterpolation: the same secret, or the same failure.
+class SmallSharesTest {
+
+    @Test
+    void agreesWithLagrangeOnRandomSubsets() {
+        Random random = new Random(1);
+        int checked = 0;
+        for (int trial = 0; trial < 400; trial++) {
+            int k = 2 + random.nextInt(7);
+            int n = k + 1 + random.nextInt(4);
+            int[] xs = Polynomials.distinctXs(random, n, 3 * n);
+            BigInteger[] ys = Polynomials.values(Polynomials.polynomial(random, k, 4 + random.nextInt(24)), xs);
+            if (random.nextInt(3) == 0) {
+                int share = random.nextInt(n);
+                ys[share] = ys[share].add(BigInteger.ONE);
+            }
+            SmallShares small = SmallShares.of(xs, ys);
+            if (small == null) {
+                continue;
+            }
+            int[] indices = Polynomials.subset(random, n, k);
+            assertEquals(Polynomials.outcome(() -> SecretSharing.lagrangeInterpolation(xs, ys, indices)),
+                    Polynomials.outcome(() -> small.interpolateAtZero(indices)), Polynomials.describe(xs, indices, 64));
+            checked++;
+        }
+        assertTrue(checked > 200, "only " + checked + " share sets fit in a long");
+    }
+
+    // Products that leave 64 bits fall back to BigInteger with the same result
+    @Test
+    void overflowFallsBack() {
+        int[] xs = {1_000_003, 2_000_029, 3_000_017, 4_000_037, 5_000_011};
+        BigInteger[] ys = Polynomials.values(new BigInteger[] {BigInteger.valueOf(-42), BigInteger.ONE}, xs);
+        int[] indices = Polynomials.range(xs.length);
+        SmallShares small = SmallShares.of(xs, ys);
+        assertNotNull(small);
+        assertEquals(BigInteger.valueOf(-42), small.interpolateAtZero(indices));
+    }
+
+    @Test
+    void valuesBeyond63BitsAreNotSmall() {
+        int[] xs = {1, 2};
+        assertNull(SmallShares.of(xs, new BigInteger[] {BigInteger.ONE, BigInteger.ONE.shiftLeft(63)}));
+        assertNotNull(SmallShares.of(xs, new BigInteger[] {BigInteger.ONE, BigInteger.valueOf(Long.MIN_VALUE)}));
+    }
+}